@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 of /api/posts and /api/feed with request handling on platform
+# threads vs virtual threads. Needs JDK 21 on the PATH and a MongoDB the app can reach
+# (SPRING_DATA_MONGODB_URI overrides application.properties). Results: target/load-*.json
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-8081}"
+LOAD_ARGS=("-Dload.baseUrl=http://localhost:${PORT}" "-Dload.concurrency=${CONCURRENCY:-64}"
+           "-Dload.warmup=${WARMUP:-10s}" "-Dload.duration=${DURATION:-30s}")
+
+mvn -B -q -Pjava21 -DskipTests package
+JAR="$(ls target/skillshare-*.jar | grep -v original | head -1)"
+
+run_mode() {
+    local label="$1"; shift
+    java -jar "$JAR" --server.port="$PORT" \
+        --spring.security.oauth2.client.registration.google.client-id="${GOOGLE_CLIENT_ID:-load-test}" \
+        "$@" > "target/app-${label}.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+
+    for _ in $(seq 1 120); do
+        curl -sf -o /dev/null "http://localhost:${PORT}/api/posts" && break
+        sleep 1
+    done
+
+    mvn -B -q -Pjava21,loadtest test -Dload.label="$label" "${LOAD_ARGS[@]}" "${EXTRA_LOAD_ARGS[@]+"${EXTRA_LOAD_ARGS[@]}"}"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+EXTRA_LOAD_ARGS=()
+run_mode platform
+EXTRA_LOAD_ARGS=("-Dload.baseline=target/load-platform.json")
+run_mode virtual --spring.profiles.active=virtual
+
+echo
+echo "Pinning reports (if any) are in target/app-virtual.log (VirtualThreadPinningMonitor)"
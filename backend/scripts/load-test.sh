@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# End-to-end load test that needs no network: starts a throwaway mongod on 127.0.0.1, seeds it
+# (LoadSeeder), starts the app against it and replays the scripted workload mix
+# (WorkloadDriver). Needs mongod on the PATH (or MONGOD=/path/to/mongod) and a Maven repository
+# that already holds the project's dependencies. Results: target/load-<label>.json
+#
+#   USERS=5000 POSTS=100000 CONCURRENCY=64 DURATION=2m scripts/load-test.sh
+#   BASELINE=target/load-before.json LABEL=after scripts/load-test.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+MONGOD="${MONGOD:-mongod}"
+MONGO_PORT="${MONGO_PORT:-27117}"
+PORT="${PORT:-8081}"
+LABEL="${LABEL:-workload}"
+MONGO_URI="mongodb://127.0.0.1:${MONGO_PORT}/skillshare-load"
+
+if ! command -v "$MONGOD" > /dev/null; then
+    echo "mongod not found; install MongoDB Community Server or set MONGOD=/path/to/mongod" >&2
+    exit 1
+fi
+
+mkdir -p target
+DB_PATH="$(mktemp -d)"
+UPLOAD_DIR="target/load-uploads"
+rm -rf "$UPLOAD_DIR"
+PIDS=()
+cleanup() {
+    for pid in "${PIDS[@]+"${PIDS[@]}"}"; do
+        kill "$pid" 2>/dev/null || true
+        wait "$pid" 2>/dev/null || true
+    done
+    rm -rf "$DB_PATH"
+}
+trap cleanup EXIT
+
+"$MONGOD" --dbpath "$DB_PATH" --port "$MONGO_PORT" --bind_ip 127.0.0.1 > target/load-mongod.log 2>&1 &
+PIDS+=($!)
+for _ in $(seq 1 60); do
+    (echo > "/dev/tcp/127.0.0.1/${MONGO_PORT}") 2>/dev/null && break
+    sleep 0.5
+done
+
+mvn -B -q -o -DskipTests package
+mvn -B -q -o -Pload-seed test -Dload.mongoUri="$MONGO_URI" \
+    -Dload.users="${USERS:-1000}" -Dload.posts="${POSTS:-20000}" -Dload.feedPosts="${FEED_POSTS:-20000}" \
+    -Dload.commentsPerPost="${COMMENTS_PER_POST:-5}" -Dload.likesPerPost="${LIKES_PER_POST:-10}" \
+    -Dload.followsPerUser="${FOLLOWS_PER_USER:-20}"
+
+JAR="$(ls target/skillshare-*.jar | grep -v original | head -1)"
+# Request-level DEBUG/TRACE logging would dominate the measurement
+SPRING_DATA_MONGODB_URI="$MONGO_URI" java ${JAVA_OPTS:-} -jar "$JAR" --server.port="$PORT" \
+    --spring.security.oauth2.client.registration.google.client-id=load-test \
+    --file.upload-dir="$UPLOAD_DIR" \
+    --logging.level.org.springframework.security=WARN \
+    --logging.level.org.springframework.web=WARN \
+    --logging.level.org.springframework.boot.autoconfigure.security=WARN \
+    > "target/app-${LABEL}.log" 2>&1 &
+PIDS+=($!)
+for _ in $(seq 1 120); do
+    curl -sf -o /dev/null "http://localhost:${PORT}/api/posts" && break
+    sleep 1
+done
+
+mvn -B -q -o -Pload-workload test -Dload.baseUrl="http://localhost:${PORT}" -Dload.label="$LABEL" \
+    -Dload.concurrency="${CONCURRENCY:-32}" -Dload.warmup="${WARMUP:-15s}" -Dload.duration="${DURATION:-60s}" \
+    ${MIX:+-Dload.mix="$MIX"} -Dload.baseline="${BASELINE:-}"
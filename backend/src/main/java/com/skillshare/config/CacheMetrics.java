@@ -0,0 +1,26 @@
+package com.skillshare.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Publishes a Caffeine cache's statistics under {@code cache.*} with a {@code cache} tag, plus
+ * a {@code cache.hit.ratio} gauge so dashboards don't have to derive it from the counters.
+ * The cache must be built with {@code recordStats()}.
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static <K, V, C extends Cache<K, V>> C monitor(MeterRegistry meterRegistry, C cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of lookups served from the cache since startup")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+}
@@ -1,8 +1,16 @@
 package com.skillshare.config;
 
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 @Configuration
 @ConfigurationProperties(prefix = "file")
 public class FileStorageConfig {
@@ -15,4 +23,15 @@ public class FileStorageConfig {
     public void setUploadDir(String uploadDir) {
         this.uploadDir = uploadDir;
     }
-} 
\ No newline at end of file
+
+    // Spool multipart uploads inside the upload dir so FileStorageService can rename them into place
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties multipartProperties) throws IOException {
+        if (multipartProperties.getLocation() == null) {
+            Path spool = Paths.get(uploadDir != null ? uploadDir : "uploads", ".tmp").toAbsolutePath().normalize();
+            Files.createDirectories(spool);
+            multipartProperties.setLocation(spool.toString());
+        }
+        return multipartProperties.createMultipartConfig();
+    }
+}
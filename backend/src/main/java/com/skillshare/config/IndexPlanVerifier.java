@@ -0,0 +1,212 @@
+package com.skillshare.config;
+
+import com.mongodb.ExplainVerbosity;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Comment;
+import com.skillshare.model.DeletionJob;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Follow;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.LearningProgress;
+import com.skillshare.model.Like;
+import com.skillshare.model.Notification;
+import com.skillshare.model.Post;
+import com.skillshare.model.StoredFile;
+import com.skillshare.model.User;
+import com.skillshare.repository.mongo.KeysetQueries;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Explains the query behind every repository method and hand-written {@code MongoTemplate}
+ * lookup at startup and reports the ones whose winning plan scans the whole collection.
+ * {@code mongo.index-verification} is {@code warn} (log them), {@code fail} (refuse to start)
+ * or {@code off}. When a query changes shape, its entry in {@link #plan()} has to change with it.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class IndexPlanVerifier implements ApplicationRunner {
+
+    enum Mode { OFF, WARN, FAIL }
+
+    record PlannedQuery(String name, Class<?> entity, Query query) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final Mode mode;
+
+    public IndexPlanVerifier(MongoTemplate mongoTemplate,
+                             @Value("${mongo.index-verification:warn}") String mode) {
+        this.mongoTemplate = mongoTemplate;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        List<PlannedQuery> plan = plan();
+        List<String> scans = new ArrayList<>();
+        for (PlannedQuery planned : plan) {
+            try {
+                if (scansCollection(explain(planned))) {
+                    scans.add(planned.name());
+                }
+            } catch (RuntimeException e) {
+                // e.g. a user without the explain privilege; the check is advisory in that case
+                log.warn("Could not explain {}: {}", planned.name(), e.getMessage());
+            }
+        }
+        if (scans.isEmpty()) {
+            log.info("Index verification: all {} planned queries use an index", plan.size());
+            return;
+        }
+        String message = "Queries planned as COLLSCAN (missing index?): " + String.join(", ", scans);
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    /**
+     * One entry per query shape the application sends, with placeholder values. Collections that
+     * don't exist yet are planned as EOF and pass trivially.
+     */
+    static List<PlannedQuery> plan() {
+        String id = new ObjectId().toHexString();
+        PageCursor cursor = new PageCursor(LocalDateTime.now(), id);
+        User user = new User();
+        user.setId(id);
+
+        List<PlannedQuery> plan = new ArrayList<>();
+        plan.add(new PlannedQuery("UserRepository.findByEmail", User.class, Query.query(Criteria.where("email").is("a@b.c"))));
+        plan.add(new PlannedQuery("UserRepository.findByUsername", User.class, Query.query(Criteria.where("username").is("a"))));
+
+        plan.add(new PlannedQuery("PostRepository.findSliceOrderByCreatedAtDesc", Post.class,
+                new Query().with(Sort.by(Sort.Direction.DESC, "createdAt", "id")).limit(21)));
+        plan.add(new PlannedQuery("PostRepository.findNewestAfter", Post.class,
+                KeysetQueries.newestFirst(new Query(), cursor, 21)));
+
+        plan.add(new PlannedQuery("CommentRepository.findByPostIdOrderByCreatedAtAsc", Comment.class,
+                Query.query(Criteria.where("postId").is(id)).with(Sort.by(Sort.Direction.ASC, "createdAt"))));
+        plan.add(new PlannedQuery("CommentRepository.updateAuthorSnapshot", Comment.class,
+                Query.query(Criteria.where("author.userId").is(id))));
+
+        plan.add(new PlannedQuery("FeedPostRepository.findByCategory", FeedPost.class,
+                feedPage(Criteria.where("category").is("IT"))));
+        plan.add(new PlannedQuery("FeedPostRepository.findBySourceType", FeedPost.class,
+                feedPage(Criteria.where("sourceType").is("post"))));
+        plan.add(new PlannedQuery("FeedPostRepository.findByCategoryAndSourceType", FeedPost.class,
+                feedPage(Criteria.where("category").is("IT").and("sourceType").is("post"))));
+        plan.add(new PlannedQuery("FeedCommentRepository.findByPostIdOrderByCreatedAtAsc", FeedComment.class,
+                Query.query(Criteria.where("postId").is(id)).with(Sort.by(Sort.Direction.ASC, "createdAt"))));
+        plan.add(new PlannedQuery("FeedCommentService.refillPreview", FeedComment.class,
+                Query.query(Criteria.where("postId").is(id)).with(Sort.by(Sort.Direction.DESC, "createdAt", "id")).limit(3)));
+
+        plan.add(new PlannedQuery("LikeRepository.existsByUserIdAndTargetTypeAndTargetId", Like.class,
+                Query.query(Criteria.where("userId").is(id).and("targetType").is(Like.TARGET_POST).and("targetId").is(id))));
+        plan.add(new PlannedQuery("DeletionService.removeAll(likes)", Like.class,
+                Query.query(Criteria.where("targetType").is(Like.TARGET_POST).and("targetId").is(id)).limit(500)));
+
+        plan.add(new PlannedQuery("FollowRepository.existsByFollowerIdAndFolloweeId", Follow.class,
+                Query.query(Criteria.where("followerId").is(id).and("followeeId").is(id))));
+        plan.add(new PlannedQuery("FollowService.getFollowers", Follow.class,
+                KeysetQueries.newestFirst(Query.query(Criteria.where("followeeId").is(id)), cursor, 21)));
+        plan.add(new PlannedQuery("FollowService.getFollowing", Follow.class,
+                KeysetQueries.newestFirst(Query.query(Criteria.where("followerId").is(id)), cursor, 21)));
+
+        plan.add(new PlannedQuery("NotificationService.getInbox", Notification.class,
+                KeysetQueries.newestFirst(Query.query(Criteria.where("userId").is(id)), cursor, 21)));
+        plan.add(new PlannedQuery("NotificationMongoRepository.countByUserIdAndReadFalse", Notification.class,
+                Query.query(Criteria.where("userId").is(id).and("read").is(false))));
+        plan.add(new PlannedQuery("NotificationHub.replay", Notification.class,
+                Query.query(Criteria.where("userId").is(id).and("id").gt(id)).with(Sort.by(Sort.Direction.ASC, "id")).limit(100)));
+        plan.add(new PlannedQuery("DeletionService.removeAll(notifications)", Notification.class,
+                Query.query(Criteria.where("targetId").is(id)).limit(500)));
+
+        plan.add(new PlannedQuery("DeletionService.claim", DeletionJob.class,
+                Query.query(Criteria.where("leaseUntil").lte(LocalDateTime.now())).with(Sort.by(Sort.Direction.ASC, "leaseUntil"))));
+
+        plan.add(new PlannedQuery("LearningPlanRepository.findByUserOrderByCreatedAtDesc", LearningPlan.class,
+                Query.query(Criteria.where("user").is(user)).with(Sort.by(Sort.Direction.DESC, "createdAt")).limit(20)));
+        plan.add(new PlannedQuery("LearningProgressRepository.findByUser", LearningProgress.class,
+                Query.query(Criteria.where("user").is(user)).limit(20)));
+
+        // One $in lookup per upload reference field, then the same field again per file about to go
+        String url = "/uploads/posts/" + id + ".jpg";
+        plan.add(new PlannedQuery("UploadGarbageCollector.referencedUrls(Post.imageUrls)", Post.class,
+                Query.query(Criteria.where("imageUrls").in(url))));
+        plan.add(new PlannedQuery("UploadGarbageCollector.referencedUrls(Post.videoUrl)", Post.class,
+                Query.query(Criteria.where("videoUrl").in(url))));
+        plan.add(new PlannedQuery("UploadGarbageCollector.referencedUrls(User.profilePictureUrl)", User.class,
+                Query.query(Criteria.where("profilePictureUrl").in(url))));
+        plan.add(new PlannedQuery("UploadGarbageCollector.referencedUrls(Comment.author.profilePictureUrl)", Comment.class,
+                Query.query(Criteria.where("author.profilePictureUrl").in(url))));
+        plan.add(new PlannedQuery("UploadGarbageCollector.referencedUrls(DeletionJob.fileUrls)", DeletionJob.class,
+                Query.query(Criteria.where("fileUrls").in(url))));
+        plan.add(new PlannedQuery("UploadGarbageCollector.storedHashes", StoredFile.class,
+                Query.query(Criteria.where("hash").in(id))));
+
+        return plan;
+    }
+
+    private Document explain(PlannedQuery planned) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(planned.entity());
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        Document filter = mapper.getMappedObject(planned.query().getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(planned.query().getSortObject(), entity);
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(planned.entity()))
+                .find(filter)
+                .sort(sort)
+                .limit(planned.query().getLimit())
+                .explain(ExplainVerbosity.QUERY_PLANNER);
+    }
+
+    // Walks the whole explain output: the winning plan nests differently per server version and topology
+    static boolean scansCollection(Object explain) {
+        if (explain instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            for (String key : document.keySet()) {
+                // Only the plan that will run matters
+                if (!key.equals("rejectedPlans") && scansCollection(document.get(key))) {
+                    return true;
+                }
+            }
+        } else if (explain instanceof List<?> list) {
+            for (Object item : list) {
+                if (scansCollection(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Query feedPage(Criteria criteria) {
+        return Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "id")).limit(20);
+    }
+}
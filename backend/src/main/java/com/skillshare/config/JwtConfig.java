@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Configuration;
 public class JwtConfig {
     private String secret;
     private long expiration;
+    private long verifiedTokenCacheSize = 10_000;
 
     public String getSecret() {
         return secret;
@@ -24,4 +25,12 @@ public class JwtConfig {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
+
+    public long getVerifiedTokenCacheSize() {
+        return verifiedTokenCacheSize;
+    }
+
+    public void setVerifiedTokenCacheSize(long verifiedTokenCacheSize) {
+        this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+    }
 } 
\ No newline at end of file
@@ -1,11 +1,12 @@
 package com.skillshare.controller;
 
 import com.skillshare.model.Comment;
-import com.skillshare.model.Post;
-import com.skillshare.model.User;
+import com.skillshare.model.CommentAuthor;
 import com.skillshare.repository.mongo.CommentRepository;
-import com.skillshare.repository.mongo.PostRepository;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.PostCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -18,35 +19,36 @@ import java.util.List;
 public class CommentController {
 
     private final CommentRepository commentRepository;
-    private final PostRepository postRepository;
+    private final PostCache postCache;
 
     @PostMapping("/posts/{postId}")
-    public ResponseEntity<?> createComment(@PathVariable String postId, @RequestBody Comment comment, @AuthenticationPrincipal User user) {
-        return postRepository.findById(postId)
-                .map(post -> {
-                    comment.setUser(user);
-                    comment.setPost(post);
-                    comment.onCreate();
-                    return ResponseEntity.ok(commentRepository.save(comment));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> createComment(@PathVariable String postId, @RequestBody Comment comment, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required to comment");
+        }
+        if (!postCache.postExists(postId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        comment.setId(null);
+        comment.setPostId(postId);
+        comment.setAuthor(new CommentAuthor(principal.getId(), principal.getDisplayName(), principal.getProfilePictureUrl()));
+        comment.onCreate();
+        return ResponseEntity.ok(commentRepository.save(comment));
     }
 
+    // Single indexed query on postId; authors are embedded, so no per-comment lookups
     @GetMapping("/posts/{postId}")
     public ResponseEntity<?> getCommentsByPost(@PathVariable String postId) {
-        return postRepository.findById(postId)
-                .map(post -> {
-                    List<Comment> comments = commentRepository.findByPost(post);
-                    return ResponseEntity.ok(comments);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        List<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtAsc(postId);
+        return ResponseEntity.ok(comments);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateComment(@PathVariable String id, @RequestBody Comment updatedComment, @AuthenticationPrincipal User user) {
+    public ResponseEntity<?> updateComment(@PathVariable String id, @RequestBody Comment updatedComment, @AuthenticationPrincipal UserPrincipal principal) {
         return commentRepository.findById(id)
                 .map(comment -> {
-                    if (comment.getUser() != null && user != null && !comment.getUser().getId().equals(user.getId())) {
+                    if (!isAuthor(comment, principal)) {
                         return ResponseEntity.badRequest().body("Not authorized to update this comment");
                     }
                     comment.setContent(updatedComment.getContent());
@@ -57,10 +59,10 @@ public class CommentController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteComment(@PathVariable String id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<?> deleteComment(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
         return commentRepository.findById(id)
                 .map(comment -> {
-                    if (comment.getUser() != null && user != null && !comment.getUser().getId().equals(user.getId())) {
+                    if (!isAuthor(comment, principal)) {
                         return ResponseEntity.badRequest().body("Not authorized to delete this comment");
                     }
                     commentRepository.delete(comment);
@@ -68,4 +70,9 @@ public class CommentController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-} 
\ No newline at end of file
+
+    private static boolean isAuthor(Comment comment, UserPrincipal principal) {
+        return comment.getAuthor() == null || principal == null
+                || principal.getId().equals(comment.getAuthor().getUserId());
+    }
+} 
@@ -1,99 +1,226 @@
 package com.skillshare.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skillshare.model.FeedPost;
 import com.skillshare.model.FeedComment;
+import com.skillshare.model.Like;
 import com.skillshare.repository.mongo.FeedPostRepository;
-import com.skillshare.repository.mongo.FeedCommentRepository;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.DeletionService;
+import com.skillshare.service.FeedCommentService;
+import com.skillshare.service.FirstPageSnapshots;
+import com.skillshare.service.LikeCounterBuffer;
+import com.skillshare.service.LikeService;
+import com.skillshare.service.PostCache;
+import com.skillshare.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/feed")
 @CrossOrigin(origins = "http://localhost:5173")
 public class FeedController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_FLUSH_EVERY = 100;
+
     @Autowired
     private FeedPostRepository feedPostRepository;
 
     @Autowired
-    private FeedCommentRepository feedCommentRepository;
+    private DeletionService deletionService;
+
+    @Autowired
+    private FeedCommentService feedCommentService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchService searchService;
 
-    // Get all posts
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private FirstPageSnapshots firstPageSnapshots;
+
+    // Get the newest posts (pass page and/or size for a paged Slice)
     @GetMapping
-    public ResponseEntity<List<FeedPost>> getAllPosts() {
-        return ResponseEntity.ok(feedPostRepository.findAll());
+    public ResponseEntity<?> getAllPosts(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (isSnapshotPage(page, size)) {
+            return firstPage(null, size, acceptEncoding, feedPostRepository::findAllBy);
+        }
+        return listPosts(page, size, feedPostRepository::findAllBy);
+    }
+
+    // Stream all posts as NDJSON
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllPosts() {
+        return ndjson(feedPostRepository::streamAllBy);
     }
 
     // Get posts by category
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<FeedPost>> getPostsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(feedPostRepository.findByCategory(category));
+    public ResponseEntity<?> getPostsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (isSnapshotPage(page, size)) {
+            return firstPage(category, size, acceptEncoding,
+                    pageable -> feedPostRepository.findByCategory(category, pageable));
+        }
+        return listPosts(page, size, pageable -> feedPostRepository.findByCategory(category, pageable));
+    }
+
+    @GetMapping("/category/{category}/stream")
+    public ResponseEntity<StreamingResponseBody> streamPostsByCategory(@PathVariable String category) {
+        return ndjson(() -> feedPostRepository.streamByCategory(category));
     }
 
     // Get posts by source type
     @GetMapping("/source/{sourceType}")
-    public ResponseEntity<List<FeedPost>> getPostsBySourceType(@PathVariable String sourceType) {
-        return ResponseEntity.ok(feedPostRepository.findBySourceType(sourceType));
+    public ResponseEntity<?> getPostsBySourceType(
+            @PathVariable String sourceType,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return listPosts(page, size, pageable -> feedPostRepository.findBySourceType(sourceType, pageable));
+    }
+
+    @GetMapping("/source/{sourceType}/stream")
+    public ResponseEntity<StreamingResponseBody> streamPostsBySourceType(@PathVariable String sourceType) {
+        return ndjson(() -> feedPostRepository.streamBySourceType(sourceType));
     }
 
     // Get posts by category and source type
     @GetMapping("/category/{category}/source/{sourceType}")
-    public ResponseEntity<List<FeedPost>> getPostsByCategoryAndSourceType(
+    public ResponseEntity<?> getPostsByCategoryAndSourceType(
+            @PathVariable String category,
+            @PathVariable String sourceType,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return listPosts(page, size,
+                pageable -> feedPostRepository.findByCategoryAndSourceType(category, sourceType, pageable));
+    }
+
+    @GetMapping("/category/{category}/source/{sourceType}/stream")
+    public ResponseEntity<StreamingResponseBody> streamPostsByCategoryAndSourceType(
             @PathVariable String category,
             @PathVariable String sourceType) {
-        return ResponseEntity.ok(feedPostRepository.findByCategoryAndSourceType(category, sourceType));
+        return ndjson(() -> feedPostRepository.streamByCategoryAndSourceType(category, sourceType));
+    }
+
+    // Get a single post
+    @GetMapping("/{id}")
+    public ResponseEntity<FeedPost> getPost(@PathVariable String id) {
+        return postCache.getFeedPost(id)
+                .map(post -> {
+                    likeCounterBuffer.applyPending(post);
+                    return ResponseEntity.ok(post);
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Create a new post
     @PostMapping
     public ResponseEntity<FeedPost> createPost(@RequestBody FeedPost post) {
-        return ResponseEntity.ok(feedPostRepository.save(post));
+        post.onCreate();
+        FeedPost saved = feedPostRepository.save(post);
+        searchService.indexFeedPost(saved);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        return ResponseEntity.ok(saved);
     }
 
     // Update a post
     @PutMapping("/{id}")
     public ResponseEntity<FeedPost> updatePost(@PathVariable String id, @RequestBody FeedPost post) {
-        Optional<FeedPost> existingPost = feedPostRepository.findById(id);
-        if (existingPost.isPresent()) {
-            post.setId(id);
-            return ResponseEntity.ok(feedPostRepository.save(post));
+        // Only the editable fields: saving the request body would overwrite likes and comment counts
+        FeedPost updated = mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)),
+                new Update().set("title", post.getTitle())
+                        .set("content", post.getContent())
+                        .set("category", post.getCategory())
+                        .set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), FeedPost.class);
+        if (updated == null) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+        postCache.evictFeedPost(id);
+        searchService.indexFeedPost(updated);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        likeCounterBuffer.applyPending(updated);
+        return ResponseEntity.ok(updated);
     }
 
     // Delete a post
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(@PathVariable String id) {
-        Optional<FeedPost> post = feedPostRepository.findById(id);
-        if (post.isPresent()) {
-            // Delete all comments for this post
-            feedCommentRepository.deleteAll(feedCommentRepository.findByPostId(id));
-            // Delete the post
-            feedPostRepository.deleteById(id);
-            return ResponseEntity.ok().build();
+        // Comments and likes are removed in the background
+        if (!deletionService.deleteFeedPost(id)) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+        searchService.remove(SearchService.TYPE_FEED_POST, id);
+        return ResponseEntity.ok().build();
     }
 
     // Like a post
     @PostMapping("/{id}/like")
-    public ResponseEntity<FeedPost> likePost(@PathVariable String id) {
-        Optional<FeedPost> post = feedPostRepository.findById(id);
-        if (post.isPresent()) {
-            FeedPost updatedPost = post.get();
-            updatedPost.setLikes(updatedPost.getLikes() + 1);
-            return ResponseEntity.ok(feedPostRepository.save(updatedPost));
+    public ResponseEntity<?> likePost(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required to like a post");
         }
-        return ResponseEntity.notFound().build();
+        return likeService.like(principal.getId(), Like.TARGET_FEED_POST, id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Unlike a post
+    @DeleteMapping("/{id}/like")
+    public ResponseEntity<?> unlikePost(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required to unlike a post");
+        }
+        return ResponseEntity.ok(likeService.unlike(principal.getId(), Like.TARGET_FEED_POST, id));
     }
 
     // Get comments for a post
     @GetMapping("/{postId}/comments")
     public ResponseEntity<List<FeedComment>> getComments(@PathVariable String postId) {
-        return ResponseEntity.ok(feedCommentRepository.findByPostId(postId));
+        return ResponseEntity.ok(feedCommentService.getComments(postId));
     }
 
     // Add a comment
@@ -101,8 +228,9 @@ public class FeedController {
     public ResponseEntity<FeedComment> addComment(
             @PathVariable String postId,
             @RequestBody FeedComment comment) {
-        comment.setPostId(postId);
-        return ResponseEntity.ok(feedCommentRepository.save(comment));
+        return feedCommentService.add(postId, comment)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Update a comment
@@ -111,13 +239,9 @@ public class FeedController {
             @PathVariable String postId,
             @PathVariable String commentId,
             @RequestBody FeedComment comment) {
-        Optional<FeedComment> existingComment = feedCommentRepository.findById(commentId);
-        if (existingComment.isPresent() && existingComment.get().getPostId().equals(postId)) {
-            comment.setId(commentId);
-            comment.setPostId(postId);
-            return ResponseEntity.ok(feedCommentRepository.save(comment));
-        }
-        return ResponseEntity.notFound().build();
+        return feedCommentService.update(postId, commentId, comment.getContent())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Delete a comment
@@ -125,11 +249,63 @@ public class FeedController {
     public ResponseEntity<Void> deleteComment(
             @PathVariable String postId,
             @PathVariable String commentId) {
-        Optional<FeedComment> comment = feedCommentRepository.findById(commentId);
-        if (comment.isPresent() && comment.get().getPostId().equals(postId)) {
-            feedCommentRepository.deleteById(commentId);
+        if (feedCommentService.delete(postId, commentId)) {
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
-} 
\ No newline at end of file
+
+    // Without paging parameters clients written for the old unbounded list still get a plain
+    // array, capped at the newest MAX_PAGE_SIZE posts; the whole list is only available as /stream
+    private ResponseEntity<?> listPosts(Integer page, Integer size, Function<Pageable, Slice<FeedPost>> paged) {
+        boolean legacy = page == null && size == null;
+        Slice<FeedPost> posts = paged.apply(legacy ? pageRequest(0, MAX_PAGE_SIZE) : pageRequest(page, size));
+        // Likes accepted since the last counter flush are not in Mongo yet
+        posts.forEach(likeCounterBuffer::applyPending);
+        return ResponseEntity.ok(legacy ? posts.getContent() : posts);
+    }
+
+    // Page 0 of a bounded list at one of the usual sizes
+    private boolean isSnapshotPage(Integer page, Integer size) {
+        return (page != null || size != null) && (page == null || page <= 0)
+                && firstPageSnapshots.covers(pageRequest(page, size).getPageSize());
+    }
+
+    private ResponseEntity<byte[]> firstPage(String category, Integer size, String acceptEncoding,
+                                             Function<Pageable, Slice<FeedPost>> paged) {
+        Pageable pageable = pageRequest(0, size);
+        return firstPageSnapshots.respond(FirstPageSnapshots.Scope.FEED, category, pageable.getPageSize(),
+                acceptEncoding, () -> {
+                    Slice<FeedPost> posts = paged.apply(pageable);
+                    posts.forEach(likeCounterBuffer::applyPending);
+                    return posts;
+                });
+    }
+
+    private static Pageable pageRequest(Integer page, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return PageRequest.of(page == null ? 0 : Math.max(0, page), pageSize, Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    // Writes one JSON document per line straight from the Mongo cursor, so memory use
+    // does not depend on how many posts match
+    private ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<FeedPost>> source) {
+        StreamingResponseBody body = out -> {
+            try (Stream<FeedPost> posts = source.get()) {
+                Iterator<FeedPost> it = posts.iterator();
+                int written = 0;
+                while (it.hasNext()) {
+                    FeedPost post = it.next();
+                    likeCounterBuffer.applyPending(post);
+                    out.write(objectMapper.writeValueAsBytes(post));
+                    out.write('\n');
+                    if (++written % STREAM_FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
\ No newline at end of file
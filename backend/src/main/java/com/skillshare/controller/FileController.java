@@ -1,6 +1,7 @@
 package com.skillshare.controller;
 
 import com.skillshare.service.FileStorageService;
+import com.skillshare.service.ImageVariantService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -8,6 +9,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,12 +19,18 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     @PostMapping("/upload/image")
     public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
             String fileUrl = fileStorageService.storeFile(file, "image");
-            Map<String, String> response = new HashMap<>();
+            // Resized copies are written in the background; only the widths that will exist are listed
+            imageVariantService.generateAsync(null, List.of(fileUrl));
+            Map<String, Object> response = new HashMap<>();
             response.put("url", fileUrl);
+            response.put("variants", imageVariantService.plannedVariants(fileUrl));
             return ResponseEntity.ok(response);
         } catch (IOException e) {
             return ResponseEntity.badRequest().body("Failed to upload image: " + e.getMessage());
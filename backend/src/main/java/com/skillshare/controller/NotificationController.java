@@ -1,52 +1,107 @@
 package com.skillshare.controller;
 
-import com.skillshare.model.Notification;
-import com.skillshare.model.User;
-import com.skillshare.repository.mongo.NotificationMongoRepository;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.NotificationHub;
+import com.skillshare.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
 @RequiredArgsConstructor
 public class NotificationController {
 
-    private final NotificationMongoRepository notificationRepository;
+    private static final int MAX_PAGE_SIZE = 100;
 
+    private final NotificationService notificationService;
+    private final NotificationHub notificationHub;
+
+    // Newest first; pass the returned nextCursor to get the following page
     @GetMapping
-    public ResponseEntity<?> getNotifications(@AuthenticationPrincipal User user) {
-        List<Notification> notifications = notificationRepository.findByUserOrderByCreatedAtDesc(user);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<?> getNotifications(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+            int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(notificationService.getInbox(principal.getId(), after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    // Server-Sent Events: one "notification" event per new notification, resumable via Last-Event-ID
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(notificationHub.subscribe(principal.getId(), lastEventId));
+    }
+
+    @GetMapping("/unread/count")
+    public ResponseEntity<?> getUnreadCount(@AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("count", notificationService.getUnreadCount(principal.getId())));
     }
 
     @PutMapping("/{id}/read")
-    public ResponseEntity<?> markAsRead(@PathVariable String id, @AuthenticationPrincipal User user) {
-        return notificationRepository.findById(id)
-                .map(notification -> {
-                    if (!notification.getUser().getId().equals(user.getId())) {
-                        return ResponseEntity.badRequest().body("Not authorized to modify this notification");
-                    }
-                    notification.setRead(true);
-                    notification.onUpdate();
-                    return ResponseEntity.ok(notificationRepository.save(notification));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> markAsRead(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("updated", notificationService.markRead(principal.getId(), List.of(id))));
+    }
+
+    // Body: {"ids": ["...", "..."]}
+    @PutMapping("/read")
+    public ResponseEntity<?> markSelectedAsRead(@RequestBody Map<String, List<String>> request,
+                                                @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<String> ids = request.get("ids");
+        if (ids == null) {
+            return ResponseEntity.badRequest().body("ids is required");
+        }
+        return ResponseEntity.ok(Map.of("updated", notificationService.markRead(principal.getId(), ids)));
+    }
+
+    @PutMapping({"/read/all", "/read-all"})
+    public ResponseEntity<?> markAllAsRead(@AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAllRead(principal.getId())));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteNotification(@PathVariable String id, @AuthenticationPrincipal User user) {
-        return notificationRepository.findById(id)
-                .map(notification -> {
-                    if (!notification.getUser().getId().equals(user.getId())) {
-                        return ResponseEntity.badRequest().body("Not authorized to delete this notification");
-                    }
-                    notificationRepository.delete(notification);
-                    return ResponseEntity.ok().build();
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> deleteNotification(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!notificationService.delete(principal.getId(), id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().build();
     }
-} 
\ No newline at end of file
+}
@@ -1,27 +1,59 @@
 package com.skillshare.controller;
 
+import com.skillshare.dto.CursorPage;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Like;
 import com.skillshare.model.Post;
 import com.skillshare.repository.mongo.PostRepository;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.DeletionService;
 import com.skillshare.service.FileStorageService;
+import com.skillshare.service.FirstPageSnapshots;
+import com.skillshare.service.ImageVariantService;
+import com.skillshare.service.LikeCounterBuffer;
+import com.skillshare.service.LikeService;
+import com.skillshare.service.PostCache;
+import com.skillshare.service.SearchService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/posts")
 @RequiredArgsConstructor
 public class PostController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final PostRepository postRepository;
+    private final MongoTemplate mongoTemplate;
     private final FileStorageService fileStorageService;
+    private final LikeService likeService;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final ImageVariantService imageVariantService;
+    private final DeletionService deletionService;
+    private final SearchService searchService;
+    private final PostCache postCache;
+    private final FirstPageSnapshots firstPageSnapshots;
 
     // Create a new post
     @PostMapping
@@ -29,9 +61,11 @@ public class PostController {
         try {
             post.onCreate();
             Post savedPost = postRepository.save(post);
+            searchService.indexPost(savedPost);
+            firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
             return ResponseEntity.ok(savedPost);
         } catch (Exception e) {
-            System.err.println("Error creating post: " + e.getMessage());
+            log.error("Error creating post", e);
             return ResponseEntity.badRequest().body("Failed to create post: " + e.getMessage());
         }
     }
@@ -47,37 +81,85 @@ public class PostController {
             post.setDescription(description != null ? description : "");
             
             if (files != null && !files.isEmpty()) {
-                List<String> imageUrls = files.stream()
-                    .map(file -> {
-                        try {
-                            return fileStorageService.storeFile(file, "posts");
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to store file: " + e.getMessage());
-                        }
-                    })
-                    .collect(Collectors.toList());
-                
-                post.setImageUrls(imageUrls);
+                // Stored in parallel; nothing is left behind if one of them fails
+                post.setImageUrls(new ArrayList<>(fileStorageService.storeAll(files, "posts")));
             }
             
             post.onCreate();
-            Post savedPost = postRepository.save(post);
+            Post savedPost;
+            try {
+                savedPost = postRepository.save(post);
+            } catch (RuntimeException e) {
+                releaseImages(post.getImageUrls());
+                throw e;
+            }
+            searchService.indexPost(savedPost);
+            firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
+            // Thumbnails are attached to the post in the background
+            imageVariantService.generateAsync(savedPost.getId(), savedPost.getImageUrls());
             return ResponseEntity.ok(savedPost);
             
         } catch (Exception e) {
-            System.err.println("Error creating post with images: " + e.getMessage());
+            log.error("Error creating post with images", e);
             return ResponseEntity.badRequest().body("Failed to create post: " + e.getMessage());
         }
     }
 
-    // Get all posts with pagination
+    // Get all posts with pagination; the total count is only computed when asked for
     @GetMapping
-    public ResponseEntity<?> getAllPosts(Pageable pageable) {
+    public ResponseEntity<?> getAllPosts(
+            Pageable pageable,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            Page<Post> posts = postRepository.findAllOrderByCreatedAtDesc(pageable);
+            // The first page at the usual sizes is served pre-serialized
+            if (!includeTotal && pageable.getPageNumber() == 0 && pageable.getSort().isUnsorted()
+                    && firstPageSnapshots.covers(pageable.getPageSize())) {
+                return firstPageSnapshots.respond(FirstPageSnapshots.Scope.POSTS, null, pageable.getPageSize(),
+                        acceptEncoding, () -> {
+                            Slice<Post> posts = postRepository.findSliceOrderByCreatedAtDesc(pageable);
+                            posts.forEach(likeCounterBuffer::applyPending);
+                            return posts;
+                        });
+            }
+            Slice<Post> posts = includeTotal
+                    ? postRepository.findAllOrderByCreatedAtDesc(pageable)
+                    : postRepository.findSliceOrderByCreatedAtDesc(pageable);
+            posts.forEach(likeCounterBuffer::applyPending);
             return ResponseEntity.ok(posts);
         } catch (Exception e) {
-            System.err.println("Error fetching posts: " + e.getMessage());
+            log.error("Error fetching posts", e);
+            return ResponseEntity.badRequest().body("Failed to fetch posts: " + e.getMessage());
+        }
+    }
+
+    // Get posts with cursor (keyset) pagination, newest first
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollPosts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+            PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+
+            // Fetch one extra row to learn whether another page exists
+            List<Post> posts = postRepository.findNewestAfter(after, limit + 1);
+            boolean hasNext = posts.size() > limit;
+            if (hasNext) {
+                posts = posts.subList(0, limit);
+            }
+            posts.forEach(likeCounterBuffer::applyPending);
+
+            Post last = posts.isEmpty() ? null : posts.get(posts.size() - 1);
+            // Posts without createdAt sort last and have no position to resume from until
+            // PostCreatedAtMigration has backfilled them, so the list ends there
+            hasNext = hasNext && last.getCreatedAt() != null;
+            String nextCursor = hasNext ? new PageCursor(last.getCreatedAt(), last.getId()).encode() : null;
+            return ResponseEntity.ok(new CursorPage<>(posts, nextCursor, hasNext));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        } catch (Exception e) {
+            log.error("Error fetching posts", e);
             return ResponseEntity.badRequest().body("Failed to fetch posts: " + e.getMessage());
         }
     }
@@ -86,11 +168,14 @@ public class PostController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getPostById(@PathVariable String id) {
         try {
-            return postRepository.findById(id)
-                    .map(ResponseEntity::ok)
+            return postCache.getPost(id)
+                    .map(post -> {
+                        likeCounterBuffer.applyPending(post);
+                        return ResponseEntity.ok(post);
+                    })
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
-            System.err.println("Error fetching post: " + e.getMessage());
+            log.error("Error fetching post", e);
             return ResponseEntity.badRequest().body("Failed to fetch post: " + e.getMessage());
         }
     }
@@ -103,42 +188,49 @@ public class PostController {
             @RequestParam(value = "files", required = false) List<MultipartFile> files) {
         
         try {
-            return postRepository.findById(id)
-                    .map(post -> {
-                        if (description != null) {
-                            post.setDescription(description);
-                        }
-                        
-                        if (files != null && !files.isEmpty()) {
-                            try {
-                                List<String> newImageUrls = files.stream()
-                                    .map(file -> {
-                                        try {
-                                            return fileStorageService.storeFile(file, "posts");
-                                        } catch (IOException e) {
-                                            throw new RuntimeException("Failed to store file: " + e.getMessage());
-                                        }
-                                    })
-                                    .collect(Collectors.toList());
-                                
-                                List<String> allImageUrls = new ArrayList<>();
-                                if (post.getImageUrls() != null) {
-                                    allImageUrls.addAll(post.getImageUrls());
-                                }
-                                allImageUrls.addAll(newImageUrls);
-                                
-                                post.setImageUrls(allImageUrls);
-                            } catch (Exception e) {
-                                return ResponseEntity.badRequest().body("Failed to process images: " + e.getMessage());
-                            }
-                        }
-                        
-                        post.onUpdate();
-                        return ResponseEntity.ok(postRepository.save(post));
-                    })
-                    .orElse(ResponseEntity.notFound().build());
+            if (!postCache.postExists(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            List<String> newImageUrls = new ArrayList<>();
+            if (files != null && !files.isEmpty()) {
+                try {
+                    newImageUrls = fileStorageService.storeAll(files, "posts");
+                } catch (Exception e) {
+                    return ResponseEntity.badRequest().body("Failed to process images: " + e.getMessage());
+                }
+            }
+            
+            // Only the changed fields: saving the whole post would overwrite likes flushed and
+            // variants added since it was read
+            Update update = new Update().set("updatedAt", LocalDateTime.now());
+            if (description != null) {
+                update.set("description", description);
+            }
+            if (!newImageUrls.isEmpty()) {
+                update.push("imageUrls").each(newImageUrls.toArray());
+            }
+            Post savedPost;
+            try {
+                savedPost = mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)), update,
+                        FindAndModifyOptions.options().returnNew(true), Post.class);
+            } catch (RuntimeException e) {
+                releaseImages(newImageUrls);
+                throw e;
+            }
+            if (savedPost == null) {
+                // Deleted meanwhile
+                releaseImages(newImageUrls);
+                return ResponseEntity.notFound().build();
+            }
+            postCache.evictPost(id);
+            searchService.indexPost(savedPost);
+            firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
+            imageVariantService.generateAsync(savedPost.getId(), newImageUrls);
+            likeCounterBuffer.applyPending(savedPost);
+            return ResponseEntity.ok(savedPost);
         } catch (Exception e) {
-            System.err.println("Error updating post: " + e.getMessage());
+            log.error("Error updating post", e);
             return ResponseEntity.badRequest().body("Failed to update post: " + e.getMessage());
         }
     }
@@ -146,28 +238,12 @@ public class PostController {
     // Delete a post
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deletePost(@PathVariable String id) {
-        try {
-            return postRepository.findById(id)
-                    .map(post -> {
-                        // Delete associated images
-                        if (post.getImageUrls() != null) {
-                            post.getImageUrls().forEach(imageUrl -> {
-                                try {
-                                    fileStorageService.deleteFile(imageUrl);
-                                } catch (IOException e) {
-                                    System.err.println("Failed to delete image: " + imageUrl + ", error: " + e.getMessage());
-                                }
-                            });
-                        }
-                        
-                        postRepository.delete(post);
-                        return ResponseEntity.ok().build();
-                    })
-                    .orElse(ResponseEntity.notFound().build());
-        } catch (Exception e) {
-            System.err.println("Error deleting post: " + e.getMessage());
-            return ResponseEntity.badRequest().body("Failed to delete post: " + e.getMessage());
+        // Comments, likes and files are removed in the background
+        if (!deletionService.deletePost(id)) {
+            return ResponseEntity.notFound().build();
         }
+        searchService.remove(SearchService.TYPE_POST, id);
+        return ResponseEntity.ok().build();
     }
 
     // Delete an image from a post
@@ -177,49 +253,62 @@ public class PostController {
             @PathVariable String imageUrl) {
         
         try {
-            return postRepository.findById(postId)
-                    .map(post -> {
-                        if (post.getImageUrls() == null || !post.getImageUrls().remove(imageUrl)) {
-                            return ResponseEntity.badRequest().body("Image not found in the post");
-                        }
-                        
-                        try {
-                            fileStorageService.deleteFile(imageUrl);
-                        } catch (IOException e) {
-                            System.err.println("Failed to delete image: " + e.getMessage());
-                        }
-                        
-                        post.onUpdate();
-                        return ResponseEntity.ok(postRepository.save(post));
-                    })
-                    .orElse(ResponseEntity.notFound().build());
+            // Pulls just this image and its variants, leaving concurrent like and variant updates alone
+            Post savedPost = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("id").is(postId).and("imageUrls").is(imageUrl)),
+                    new Update().pull("imageUrls", imageUrl)
+                            .pull("imageVariants", new Document("sourceUrl", imageUrl))
+                            .set("updatedAt", LocalDateTime.now()),
+                    FindAndModifyOptions.options().returnNew(true), Post.class);
+            if (savedPost == null) {
+                return postCache.postExists(postId)
+                        ? ResponseEntity.badRequest().body("Image not found in the post")
+                        : ResponseEntity.notFound().build();
+            }
+            
+            try {
+                fileStorageService.deleteFile(imageUrl);
+            } catch (IOException e) {
+                log.warn("Failed to delete image {}: {}", imageUrl, e.getMessage());
+            }
+            postCache.evictPost(postId);
+            firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
+            likeCounterBuffer.applyPending(savedPost);
+            return ResponseEntity.ok(savedPost);
         } catch (Exception e) {
-            System.err.println("Error deleting image: " + e.getMessage());
+            log.error("Error deleting image", e);
             return ResponseEntity.badRequest().body("Failed to delete image: " + e.getMessage());
         }
     }
 
     // Like a post
     @PostMapping("/{id}/like")
-    public ResponseEntity<?> likePost(@PathVariable String id) {
-        return postRepository.findById(id)
-            .map(post -> {
-                post.setLikes(post.getLikes() + 1);
-                postRepository.save(post);
-                return ResponseEntity.ok(post);
-            })
+    public ResponseEntity<?> likePost(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required to like a post");
+        }
+        return likeService.like(principal.getId(), Like.TARGET_POST, id)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 
     // Unlike a post
     @DeleteMapping("/{id}/like")
-    public ResponseEntity<?> unlikePost(@PathVariable String id) {
-        return postRepository.findById(id)
-            .map(post -> {
-                post.setLikes(Math.max(0, post.getLikes() - 1));
-                postRepository.save(post);
-                return ResponseEntity.ok(post);
-            })
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> unlikePost(@PathVariable String id, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required to unlike a post");
+        }
+        return ResponseEntity.ok(likeService.unlike(principal.getId(), Like.TARGET_POST, id));
+    }
+
+    // Gives back files stored for a post that was never saved
+    private void releaseImages(List<String> imageUrls) {
+        for (String imageUrl : imageUrls) {
+            try {
+                fileStorageService.deleteFile(imageUrl);
+            } catch (IOException e) {
+                log.warn("Failed to release image {}: {}", imageUrl, e.getMessage());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.skillshare.controller;
+
+import com.skillshare.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final SearchService searchService;
+
+    // Ranked matches for every word of q; the last word also matches as a prefix
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().body("Query must not be empty");
+        }
+        if (type != null && !SearchService.TYPES.contains(type)) {
+            return ResponseEntity.badRequest().body("Unknown type: " + type);
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(searchService.search(query, type, category, Math.max(0, page), limit));
+    }
+}
@@ -1,37 +1,66 @@
 package com.skillshare.controller;
 
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Notification;
 import com.skillshare.model.User;
+import com.skillshare.repository.mongo.CommentRepository;
 import com.skillshare.repository.mongo.UserRepository;
+import com.skillshare.security.CustomUserDetailsService;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.FollowService;
+import com.skillshare.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
     @GetMapping("/profile")
-    public ResponseEntity<?> getUserProfile() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+    public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         return ResponseEntity.ok(user);
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateUserProfile(@RequestBody User updatedUser) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+    public ResponseEntity<?> updateUserProfile(@RequestBody User updatedUser, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.setName(updatedUser.getName());
@@ -39,43 +68,99 @@ public class UserController {
         user.setProfilePictureUrl(updatedUser.getProfilePictureUrl());
         user.onUpdate();
         
-        userRepository.save(user);
+        userRepository.updateProfile(user.getId(), user.getName(), user.getBio(), user.getProfilePictureUrl(), user.getUpdatedAt());
+        userDetailsService.evict(user.getEmail());
+        // Comments carry a copy of the author's name and picture
+        commentRepository.updateAuthorSnapshot(user.getId(),
+                user.getName() != null ? user.getName() : user.getUsername(), user.getProfilePictureUrl());
         return ResponseEntity.ok(user);
     }
 
-    @PostMapping("/follow/{userId}")
-    public ResponseEntity<?> followUser(@PathVariable String userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
+    @PutMapping("/password")
+    public ResponseEntity<?> changePassword(@RequestBody Map<String, String> request, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String currentPassword = request.get("currentPassword");
+        String newPassword = request.get("newPassword");
+        if (newPassword == null || newPassword.isBlank()) {
+            return ResponseEntity.badRequest().body("New password is required");
+        }
         
-        User currentUser = userRepository.findByEmail(email)
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        User userToFollow = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User to follow not found"));
+        if (currentPassword == null || !passwordEncoder.matches(currentPassword, user.getPassword())) {
+            return ResponseEntity.badRequest().body("Current password is incorrect");
+        }
+        
+        user.onUpdate();
+        userRepository.updatePassword(user.getId(), passwordEncoder.encode(newPassword), user.getUpdatedAt());
+        // The cached principal holds the old password hash
+        userDetailsService.evict(user.getEmail());
+        return ResponseEntity.ok("Password changed successfully");
+    }
+
+    @PostMapping("/follow/{userId}")
+    public ResponseEntity<?> followUser(@PathVariable String userId, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (principal.getId().equals(userId)) {
+            return ResponseEntity.badRequest().body("You cannot follow yourself");
+        }
         
-        currentUser.getFollowing().add(userToFollow);
-        currentUser.onUpdate();
-        userRepository.save(currentUser);
+        FollowService.Result result = followService.follow(principal.getId(), userId);
+        if (result == FollowService.Result.USER_NOT_FOUND) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User to follow not found");
+        }
+        if (result == FollowService.Result.CHANGED) {
+            notificationService.create(userId, Notification.TYPE_FOLLOW,
+                    principal.getDisplayName() + " started following you", principal.getId());
+        }
         
         return ResponseEntity.ok("Successfully followed user");
     }
 
     @DeleteMapping("/follow/{userId}")
-    public ResponseEntity<?> unfollowUser(@PathVariable String userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        User currentUser = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        User userToUnfollow = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
-        
-        currentUser.getFollowing().remove(userToUnfollow);
-        currentUser.onUpdate();
-        userRepository.save(currentUser);
+    public ResponseEntity<?> unfollowUser(@PathVariable String userId, @AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         
+        followService.unfollow(principal.getId(), userId);
         return ResponseEntity.ok("Successfully unfollowed user");
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/{userId}/followers")
+    public ResponseEntity<?> getFollowers(
+            @PathVariable String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(followService.getFollowers(userId, decodeCursor(cursor), pageSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    @GetMapping("/{userId}/following")
+    public ResponseEntity<?> getFollowing(
+            @PathVariable String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(followService.getFollowing(userId, decodeCursor(cursor), pageSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        return cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+} 
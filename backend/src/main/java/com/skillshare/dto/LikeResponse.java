@@ -0,0 +1,14 @@
+package com.skillshare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeResponse {
+    private String targetId;
+    private boolean liked;
+    private boolean changed; // false when the request was a repeat like/unlike
+}
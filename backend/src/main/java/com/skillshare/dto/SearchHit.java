@@ -0,0 +1,20 @@
+package com.skillshare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    private String type; // "post", "feed_post" or "learning_plan"
+    private String id;
+    private String title;
+    private String snippet;
+    private String category; // feed posts only
+    private LocalDateTime createdAt;
+    private double score;
+}
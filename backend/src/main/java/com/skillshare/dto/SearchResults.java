@@ -0,0 +1,16 @@
+package com.skillshare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResults {
+    private List<SearchHit> hits;
+    private int total; // matches across all pages
+    private boolean hasNext;
+}
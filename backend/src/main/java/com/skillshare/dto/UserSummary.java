@@ -0,0 +1,20 @@
+package com.skillshare.dto;
+
+import com.skillshare.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private String id;
+    private String username;
+    private String name;
+    private String profilePictureUrl;
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getName(), user.getProfilePictureUrl());
+    }
+}
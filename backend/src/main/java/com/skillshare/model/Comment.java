@@ -1,8 +1,9 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -12,16 +13,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "comments")
+@CompoundIndexes({
+    @CompoundIndex(name = "postId_createdAt_idx", def = "{'postId': 1, 'createdAt': 1}"),
+    @CompoundIndex(name = "author_userId_idx", def = "{'author.userId': 1}"),
+    @CompoundIndex(name = "author_profilePictureUrl_idx", def = "{'author.profilePictureUrl': 1}", sparse = true)
+})
 public class Comment {
     @Id
     private String id;
     private String content;
-
-    @DBRef
-    private User user;
-
-    @DBRef
-    private Post post;
+    private String postId;
+    private CommentAuthor author;
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -34,4 +36,4 @@ public class Comment {
     public void onUpdate() {
         this.updatedAt = LocalDateTime.now();
     }
-} 
\ No newline at end of file
+} 
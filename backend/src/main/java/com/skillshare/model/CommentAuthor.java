@@ -0,0 +1,18 @@
+package com.skillshare.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Author fields copied onto each comment when it is written, so listing comments never has
+ * to load the authors. Kept in sync by UserController when a profile changes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentAuthor {
+    private String userId;
+    private String name;
+    private String profilePictureUrl;
+}
@@ -0,0 +1,46 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cleanup still owed for a deleted post or feed post: its comments, likes and notifications,
+ * and the upload references in {@code fileUrls}. Urls are removed from the job as they are
+ * released, so a job resumed after a crash never releases a reference twice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "deletion_jobs")
+@CompoundIndex(name = "leaseUntil_idx", def = "{'leaseUntil': 1}")
+public class DeletionJob {
+    @Id
+    private String id;
+    private String targetType; // Like.TARGET_POST or Like.TARGET_FEED_POST
+    private String targetId;
+    @Indexed
+    private List<String> fileUrls = new ArrayList<>();
+    // Claimed by a worker until then; once past, any instance may pick the job up
+    private LocalDateTime leaseUntil;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+
+    public DeletionJob(String targetType, String targetId, List<String> fileUrls) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.fileUrls = fileUrls;
+    }
+
+    public void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -1,6 +1,7 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "feed_comments")
+@CompoundIndex(name = "postId_createdAt_id_idx", def = "{'postId': 1, 'createdAt': -1, '_id': -1}")
 public class FeedComment {
     @Id
     private String id;
@@ -1,6 +1,8 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,6 +14,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "feed_posts")
+// Feed pages filter by category and/or source type and sort newest id first
+@CompoundIndexes({
+    @CompoundIndex(name = "category_id_idx", def = "{'category': 1, '_id': -1}"),
+    @CompoundIndex(name = "sourceType_id_idx", def = "{'sourceType': 1, '_id': -1}"),
+    @CompoundIndex(name = "category_sourceType_id_idx", def = "{'category': 1, 'sourceType': 1, '_id': -1}")
+})
 public class FeedPost {
     @Id
     private String id;
@@ -21,7 +29,9 @@ public class FeedPost {
     private String sourceId;  // ID of the original post from its category
     private String sourceType; // Type of the source (e.g., "learning_plan", "post")
     private int likes;
+    // Preview of the newest comments, newest first; the full list is in feed_comments
     private List<FeedComment> comments;
+    private long commentCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -30,6 +40,7 @@ public class FeedPost {
         this.updatedAt = LocalDateTime.now();
         this.likes = 0;
         this.comments = List.of();
+        this.commentCount = 0;
     }
 
     public void onUpdate() {
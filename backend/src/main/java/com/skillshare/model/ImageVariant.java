@@ -0,0 +1,17 @@
+package com.skillshare.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * A resized copy of one of a post's images, generated in the background after upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+    private String sourceUrl;
+    private int width;
+    private String url;
+}
@@ -1,6 +1,7 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.util.List;
 
 @Data
 @Document(collection = "learning_plans")
+@CompoundIndex(name = "user_createdAt_idx", def = "{'user': 1, 'createdAt': -1}")
 public class LearningPlan {
     @Id
     private String id;
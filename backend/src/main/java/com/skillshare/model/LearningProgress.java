@@ -1,6 +1,7 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
@@ -24,6 +25,7 @@ public class LearningProgress {
     private LocalDate updatedAt;
 
     @DBRef
+    @Indexed
     private User user;
 
     public void onCreate() {
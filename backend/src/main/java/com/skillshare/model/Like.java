@@ -0,0 +1,41 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "likes")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_target_idx", def = "{'userId': 1, 'targetType': 1, 'targetId': 1}", unique = true),
+    // Removing every like of a deleted post
+    @CompoundIndex(name = "target_idx", def = "{'targetType': 1, 'targetId': 1}")
+})
+public class Like {
+    public static final String TARGET_POST = "post";
+    public static final String TARGET_FEED_POST = "feed_post";
+
+    @Id
+    private String id;
+    private String userId;
+    private String targetType; // "post" or "feed_post"
+    private String targetId;
+    private LocalDateTime createdAt;
+
+    public Like(String userId, String targetType, String targetId) {
+        this.userId = userId;
+        this.targetType = targetType;
+        this.targetId = targetId;
+    }
+
+    public void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
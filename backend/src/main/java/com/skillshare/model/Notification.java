@@ -1,8 +1,9 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -12,18 +13,35 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "notifications")
+@CompoundIndexes({
+    @CompoundIndex(name = "userId_createdAt_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "userId_read_idx", def = "{'userId': 1, 'read': 1}"),
+    @CompoundIndex(name = "targetId_idx", def = "{'targetId': 1}")
+})
 public class Notification {
+    public static final String TYPE_FOLLOW = "follow";
+
     @Id
     private String id;
     private String type;
     private String message;
     private boolean read;
 
-    @DBRef
-    private User user;
+    // Recipient
+    private String userId;
+
+    // What the notification is about (a user, post, ...), if anything
+    private String targetId;
 
     private LocalDateTime createdAt;
 
+    public Notification(String userId, String type, String message, String targetId) {
+        this.userId = userId;
+        this.type = type;
+        this.message = message;
+        this.targetId = targetId;
+    }
+
     public void onCreate() {
         this.createdAt = LocalDateTime.now();
     }
@@ -32,4 +50,4 @@ public class Notification {
         // For notifications, we don't need to update any timestamp on update
         // This method is kept for consistency with other entities
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Unread notification count per user, kept in step with the {@code notifications} collection
+ * so the notification bell is a single primary-key read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "notification_counters")
+public class NotificationCounter {
+    // The user's id
+    @Id
+    private String id;
+    private long unread;
+}
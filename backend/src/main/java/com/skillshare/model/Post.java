@@ -1,6 +1,8 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,11 +15,17 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "posts")
+@CompoundIndex(name = "createdAt_id_idx", def = "{'createdAt': -1, '_id': -1}")
 public class Post {
     @Id
     private String id;
     private String description;
+    // Upload references, looked up by UploadGarbageCollector
+    @Indexed
     private List<String> imageUrls = new ArrayList<>();
+    // Filled in asynchronously by ImageVariantService
+    private List<ImageVariant> imageVariants = new ArrayList<>();
+    @Indexed(sparse = true)
     private String videoUrl;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
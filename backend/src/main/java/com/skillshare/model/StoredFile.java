@@ -0,0 +1,27 @@
+package com.skillshare.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Reference count for a content-addressed upload. The id is the file's public URL
+ * ({@code /uploads/<type>/<sha256>.<ext>}); the bytes are deleted when {@code refs} reaches zero.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stored_files")
+public class StoredFile {
+    @Id
+    private String id;
+    @Indexed
+    private String hash;
+    private long size;
+    private long refs;
+    private LocalDateTime createdAt;
+}
@@ -1,17 +1,13 @@
 package com.skillshare.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.List;
-import jakarta.persistence.ManyToMany;
-import java.util.ArrayList;
 
 
 @Data
@@ -21,11 +17,16 @@ import java.util.ArrayList;
 public class User {
     @Id
     private String id;
+    // Not unique: registration never enforced distinct usernames, so existing data may repeat them
+    @Indexed
     private String username;
     private String name;
+    @Indexed(unique = true)
     private String email;
     private String password;
     private String bio;
+    // Sparse: most users have none; looked up by UploadGarbageCollector
+    @Indexed(sparse = true)
     private String profilePictureUrl;
     private String role;
     private boolean enabled;
@@ -33,8 +34,9 @@ public class User {
     private String resetPasswordToken;
     private String resetPasswordExpiry;
 
-    @ManyToMany
-    private List<User> following = new ArrayList<>();
+    // Maintained by FollowService alongside the follows collection
+    private long followerCount;
+    private long followingCount;
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
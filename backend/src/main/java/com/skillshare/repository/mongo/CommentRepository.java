@@ -1,13 +1,19 @@
 package com.skillshare.repository.mongo;
 
 import com.skillshare.model.Comment;
-import com.skillshare.model.Post;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends MongoRepository<Comment, String> {
-    List<Comment> findByPost(Post post);
-} 
\ No newline at end of file
+    List<Comment> findByPostIdOrderByCreatedAtAsc(String postId);
+
+    // Refreshes the author snapshot on every comment by this user
+    @Query("{ 'author.userId' : ?0 }")
+    @Update("{ '$set' : { 'author.name' : ?1, 'author.profilePictureUrl' : ?2 } }")
+    long updateAuthorSnapshot(String userId, String name, String profilePictureUrl);
+} 
@@ -8,4 +8,5 @@ import java.util.List;
 @Repository
 public interface FeedCommentRepository extends MongoRepository<FeedComment, String> {
     List<FeedComment> findByPostId(String postId);
+    List<FeedComment> findByPostIdOrderByCreatedAtAsc(String postId);
 } 
\ No newline at end of file
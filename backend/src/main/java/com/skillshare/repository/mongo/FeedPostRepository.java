@@ -1,13 +1,23 @@
 package com.skillshare.repository.mongo;
 
 import com.skillshare.model.FeedPost;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
-import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FeedPostRepository extends MongoRepository<FeedPost, String> {
-    List<FeedPost> findByCategory(String category);
-    List<FeedPost> findBySourceType(String sourceType);
-    List<FeedPost> findByCategoryAndSourceType(String category, String sourceType);
-} 
\ No newline at end of file
+    // Slices, so no count query is issued; unbounded lists go through the streams below
+    Slice<FeedPost> findAllBy(Pageable pageable);
+    Slice<FeedPost> findByCategory(String category, Pageable pageable);
+    Slice<FeedPost> findBySourceType(String sourceType, Pageable pageable);
+    Slice<FeedPost> findByCategoryAndSourceType(String category, String sourceType, Pageable pageable);
+
+    // Cursor-backed streams; callers must close them
+    Stream<FeedPost> streamAllBy();
+    Stream<FeedPost> streamByCategory(String category);
+    Stream<FeedPost> streamBySourceType(String sourceType);
+    Stream<FeedPost> streamByCategoryAndSourceType(String category, String sourceType);
+} 
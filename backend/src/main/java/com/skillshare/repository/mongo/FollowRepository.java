@@ -0,0 +1,11 @@
+package com.skillshare.repository.mongo;
+
+import com.skillshare.model.Follow;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FollowRepository extends MongoRepository<Follow, String> {
+    boolean existsByFollowerIdAndFolloweeId(String followerId, String followeeId);
+    long deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+}
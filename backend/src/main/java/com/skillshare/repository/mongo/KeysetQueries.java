@@ -0,0 +1,29 @@
+package com.skillshare.repository.mongo;
+
+import com.skillshare.dto.PageCursor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Keyset ("seek") paging over (createdAt desc, _id desc). Needs an index ending in
+ * {@code createdAt: -1, _id: -1} behind any equality fields already on the query.
+ */
+public final class KeysetQueries {
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * Restricts {@code query} to entries strictly after {@code after} (no-op when null),
+     * newest first, limited to {@code limit} rows.
+     */
+    public static Query newestFirst(Query query, PageCursor after, int limit) {
+        if (after != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id())));
+        }
+        return query.with(Sort.by(Sort.Direction.DESC, "createdAt", "id")).limit(limit);
+    }
+}
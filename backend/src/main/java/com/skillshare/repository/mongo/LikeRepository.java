@@ -0,0 +1,11 @@
+package com.skillshare.repository.mongo;
+
+import com.skillshare.model.Like;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LikeRepository extends MongoRepository<Like, String> {
+    boolean existsByUserIdAndTargetTypeAndTargetId(String userId, String targetType, String targetId);
+    long deleteByUserIdAndTargetTypeAndTargetId(String userId, String targetType, String targetId);
+}
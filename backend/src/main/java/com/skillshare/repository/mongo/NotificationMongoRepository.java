@@ -1,13 +1,13 @@
 package com.skillshare.repository.mongo;
 
 import com.skillshare.model.Notification;
-import com.skillshare.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationMongoRepository extends MongoRepository<Notification, String> {
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
-} 
\ No newline at end of file
+    Optional<Notification> findByIdAndUserId(String id, String userId);
+    long countByUserIdAndReadFalse(String userId);
+}
@@ -3,11 +3,16 @@ package com.skillshare.repository.mongo;
 import com.skillshare.model.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
-public interface PostRepository extends MongoRepository<Post, String> {
+public interface PostRepository extends MongoRepository<Post, String>, PostRepositoryCustom {
     
-    @Query(value = "{}", sort = "{ 'createdAt' : -1 }")
+    @Query(value = "{}", sort = "{ 'createdAt' : -1, '_id' : -1 }")
     Page<Post> findAllOrderByCreatedAtDesc(Pageable pageable);
-} 
\ No newline at end of file
+
+    // Same ordering without the count() query a Page needs
+    @Query(value = "{}", sort = "{ 'createdAt' : -1, '_id' : -1 }")
+    Slice<Post> findSliceOrderByCreatedAtDesc(Pageable pageable);
+} 
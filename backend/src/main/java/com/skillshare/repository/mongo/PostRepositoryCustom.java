@@ -0,0 +1,15 @@
+package com.skillshare.repository.mongo;
+
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Post;
+
+import java.util.List;
+
+public interface PostRepositoryCustom {
+
+    /**
+     * Keyset page of posts, newest first, starting after {@code after} (or from the top when null).
+     * Served from the (createdAt, _id) index, so every page costs the same regardless of depth.
+     */
+    List<Post> findNewestAfter(PageCursor after, int limit);
+}
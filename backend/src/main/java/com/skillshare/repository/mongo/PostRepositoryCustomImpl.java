@@ -0,0 +1,20 @@
+package com.skillshare.repository.mongo;
+
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Post;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Post> findNewestAfter(PageCursor after, int limit) {
+        return mongoTemplate.find(KeysetQueries.newestFirst(new Query(), after, limit), Post.class);
+    }
+}
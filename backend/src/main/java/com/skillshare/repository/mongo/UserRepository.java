@@ -2,7 +2,10 @@ package com.skillshare.repository.mongo;
 
 import com.skillshare.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +14,13 @@ public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
-} 
\ No newline at end of file
+
+    // Targeted $set updates, so saving a profile never overwrites the follow counters
+    @Query("{ '_id' : ?0 }")
+    @Update("{ '$set' : { 'name' : ?1, 'bio' : ?2, 'profilePictureUrl' : ?3, 'updatedAt' : ?4 } }")
+    long updateProfile(String id, String name, String bio, String profilePictureUrl, LocalDateTime updatedAt);
+
+    @Query("{ '_id' : ?0 }")
+    @Update("{ '$set' : { 'password' : ?1, 'updatedAt' : ?2 } }")
+    long updatePassword(String id, String password, LocalDateTime updatedAt);
+} 
@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,7 +16,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
+@Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -33,8 +36,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     || path.startsWith("/uploads/")
                     || (request.getMethod().equals("GET") && path.startsWith("/api/posts"));
 
-        System.out.println("[JwtFilter] shouldNotFilter: " + skip + " | Path: " + path + " | Method: " + request.getMethod());
-
+        if (skip) {
+            log.trace("Skipping JWT authentication for {} {}", request.getMethod(), path);
+        }
         return skip;
     }
 
@@ -43,10 +47,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            System.out.println("[JwtFilter] JWT: " + jwt);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            Optional<String> verifiedUsername = StringUtils.hasText(jwt)
+                    ? tokenProvider.resolveUsername(jwt)
+                    : Optional.empty();
+
+            if (verifiedUsername.isPresent()) {
+                String username = verifiedUsername.get();
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -55,12 +62,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                System.out.println("[JwtFilter] Authenticated user: " + username);
-            } else {
-                System.out.println("[JwtFilter] Invalid or missing JWT.");
+                log.debug("Authenticated {} for {}", username, request.getRequestURI());
+            } else if (StringUtils.hasText(jwt)) {
+                // The token itself is a credential and never logged
+                log.debug("Rejected invalid or expired JWT for {}", request.getRequestURI());
             }
         } catch (Exception ex) {
-            System.err.println("[JwtFilter] Failed to authenticate: " + ex.getMessage());
+            log.warn("Failed to authenticate request to {}: {}", request.getRequestURI(), ex.getMessage());
         }
 
         filterChain.doFilter(request, response);
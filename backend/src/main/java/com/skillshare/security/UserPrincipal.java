@@ -0,0 +1,90 @@
+package com.skillshare.security;
+
+import com.skillshare.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Slim authenticated principal: just what request handling needs (id, credentials and the
+ * display fields copied onto comments), so controllers can act on the current user without
+ * loading the full {@link User} document.
+ *
+ * Instances are shared through the principal cache, so this class must stay immutable and
+ * must not implement {@code CredentialsContainer} (Spring would erase the cached password
+ * hash after every login).
+ */
+public final class UserPrincipal implements UserDetails {
+
+    private final String id;
+    private final String email;
+    private final String password;
+    private final String displayName;
+    private final String profilePictureUrl;
+
+    public UserPrincipal(String id, String email, String password, String displayName, String profilePictureUrl) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.displayName = displayName;
+        this.profilePictureUrl = profilePictureUrl;
+    }
+
+    public static UserPrincipal from(User user) {
+        String displayName = user.getName() != null ? user.getName() : user.getUsername();
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), displayName, user.getProfilePictureUrl());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getProfilePictureUrl() {
+        return profilePictureUrl;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.skillshare.model.Comment;
+import com.skillshare.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites comments stored by older versions, which pointed at their post and author through
+ * {@code post}/{@code user} DBRefs, into the {@code postId} + embedded author form. Runs in
+ * batches with one {@code $in} user lookup and one bulk write per batch; re-running only picks
+ * up comments that still have no {@code postId}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("postId").exists(false).and("post").exists(true));
+        legacy.fields().include("post", "user");
+
+        int migrated = 0;
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Document> comments = mongoTemplate.stream(legacy, Document.class, "comments")) {
+            for (Document comment : (Iterable<Document>) comments::iterator) {
+                batch.add(comment);
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += migrate(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += migrate(batch);
+        }
+        if (migrated > 0) {
+            log.info("Migrated {} comments to postId/embedded author form", migrated);
+        }
+    }
+
+    private int migrate(List<Document> batch) {
+        List<String> userIds = batch.stream()
+                .map(comment -> refId(comment.get("user")))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Query usersQuery = new Query(Criteria.where("id").in(userIds));
+        usersQuery.fields().include("name", "username", "profilePictureUrl");
+        Map<String, User> authors = mongoTemplate.find(usersQuery, User.class).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+        for (Document comment : batch) {
+            Update update = new Update()
+                    .set("postId", refId(comment.get("post")))
+                    .unset("post")
+                    .unset("user");
+            User author = authors.get(refId(comment.get("user")));
+            if (author != null) {
+                update.set("author.userId", author.getId())
+                        .set("author.name", author.getName() != null ? author.getName() : author.getUsername())
+                        .set("author.profilePictureUrl", author.getProfilePictureUrl());
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(comment.get("_id"))), update);
+        }
+        bulk.execute();
+        return batch.size();
+    }
+
+    private static String refId(Object ref) {
+        if (!(ref instanceof DBRef dbRef)) {
+            return null;
+        }
+        Object id = dbRef.getId();
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
@@ -0,0 +1,272 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Comment;
+import com.skillshare.model.DeletionJob;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Like;
+import com.skillshare.model.Notification;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes posts and feed posts without making the request wait for their dependents. The post
+ * itself is removed right away; its comments, likes, notifications and upload references are
+ * recorded as a {@link DeletionJob} and removed by a background worker in batches of
+ * {@code deletion.batch-size}. Jobs are claimed with a lease, so one left behind by a crash or
+ * a failed step is picked up again, by any instance, once {@code deletion.lease} has passed;
+ * one stopped by a shutdown is handed back at once.
+ */
+@Slf4j
+@Service
+public class DeletionService {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final FileStorageService fileStorageService;
+    private final PostCache postCache;
+    private final FirstPageSnapshots firstPageSnapshots;
+    private final int batchSize;
+    private final Duration lease;
+    // One pass at a time plus at most one queued behind it; further triggers are redundant
+    private final ThreadPoolExecutor worker;
+    private volatile boolean running = true;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer jobTimer;
+    private final Counter failures;
+
+    public DeletionService(MongoTemplate mongoTemplate, FileStorageService fileStorageService, PostCache postCache,
+                           FirstPageSnapshots firstPageSnapshots,
+                           MeterRegistry meterRegistry,
+                           @Value("${deletion.batch-size:" + DEFAULT_BATCH_SIZE + "}") int batchSize,
+                           @Value("${deletion.lease:5m}") Duration lease) {
+        this.mongoTemplate = mongoTemplate;
+        this.fileStorageService = fileStorageService;
+        this.postCache = postCache;
+        this.firstPageSnapshots = firstPageSnapshots;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "deletion-jobs");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.jobTimer = Timer.builder("deletion.jobs.duration")
+                .description("Time to remove everything that belonged to one deleted post")
+                .register(meterRegistry);
+        this.failures = Counter.builder("deletion.jobs.failures")
+                .description("Deletion job runs that failed and were left for a retry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Removes the post and schedules its cleanup. False if there was no such post.
+     */
+    public boolean deletePost(String postId) {
+        Query query = Query.query(Criteria.where("id").is(postId));
+        query.fields().include("imageUrls", "videoUrl");
+        Post post = mongoTemplate.findOne(query, Post.class);
+        if (post == null) {
+            return false;
+        }
+        List<String> fileUrls = new ArrayList<>();
+        if (post.getImageUrls() != null) {
+            fileUrls.addAll(post.getImageUrls());
+        }
+        if (post.getVideoUrl() != null && !post.getVideoUrl().isBlank()) {
+            fileUrls.add(post.getVideoUrl());
+        }
+        schedule(new DeletionJob(Like.TARGET_POST, postId, fileUrls));
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(postId)), Post.class);
+        postCache.evictPost(postId);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
+        trigger();
+        return true;
+    }
+
+    /**
+     * Removes the feed post and schedules its cleanup. False if there was no such feed post.
+     */
+    public boolean deleteFeedPost(String postId) {
+        if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(postId)), FeedPost.class)) {
+            return false;
+        }
+        schedule(new DeletionJob(Like.TARGET_FEED_POST, postId, new ArrayList<>()));
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(postId)), FeedPost.class);
+        postCache.evictFeedPost(postId);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        trigger();
+        return true;
+    }
+
+    // The job is stored before the post goes, so a crash in between still leaves it to finish the work
+    private void schedule(DeletionJob job) {
+        // One job per target: a concurrent second delete must not release the same files again
+        job.setId(job.getTargetType() + ":" + job.getTargetId());
+        job.setLeaseUntil(LocalDateTime.now());
+        job.onCreate();
+        try {
+            mongoTemplate.insert(job);
+        } catch (DuplicateKeyException alreadyScheduled) {
+            log.debug("Deletion of {} already scheduled", job.getId());
+        }
+    }
+
+    // Also picks up jobs whose worker died or failed
+    @Scheduled(fixedDelayString = "${deletion.poll-interval-ms:60000}")
+    public void trigger() {
+        try {
+            worker.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the lease lets the next start pick the jobs up
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.shutdown();
+    }
+
+    void drain() {
+        try {
+            DeletionJob job;
+            while (running && (job = claim()) != null) {
+                DeletionJob claimed = job;
+                jobTimer.record(() -> run(claimed));
+            }
+        } catch (RuntimeException e) {
+            // e.g. Mongo unreachable; the next poll tries again
+            log.warn("Deletion jobs paused: {}", e.getMessage());
+        }
+    }
+
+    private DeletionJob claim() {
+        Query claimable = Query.query(Criteria.where("leaseUntil").lte(LocalDateTime.now()))
+                .with(Sort.by(Sort.Direction.ASC, "leaseUntil"));
+        return mongoTemplate.findAndModify(claimable,
+                new Update().set("leaseUntil", LocalDateTime.now().plus(lease)).inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), DeletionJob.class);
+    }
+
+    void run(DeletionJob job) {
+        try {
+            boolean feedPost = Like.TARGET_FEED_POST.equals(job.getTargetType());
+            // Again, in case the process died between storing the job and removing the post
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(job.getTargetId())),
+                    feedPost ? FeedPost.class : Post.class);
+
+            boolean complete = removeAll(job, feedPost ? FeedComment.class : Comment.class,
+                    Criteria.where("postId").is(job.getTargetId()))
+                    && removeAll(job, Like.class,
+                    Criteria.where("targetType").is(job.getTargetType()).and("targetId").is(job.getTargetId()))
+                    && removeAll(job, Notification.class, Criteria.where("targetId").is(job.getTargetId()));
+            if (!complete) {
+                // Shutting down mid-job: the job must outlive this run or the rest is orphaned.
+                // Handing the lease back lets the next start finish it right away
+                mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(job.getId())),
+                        new Update().set("leaseUntil", LocalDateTime.now()), DeletionJob.class);
+                log.info("Deletion of {} interrupted by shutdown, left for the next start", job.getId());
+                return;
+            }
+
+            for (String url : job.getFileUrls()) {
+                releaseFile(job, url);
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(job.getId())), DeletionJob.class);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Deletion of {} failed (attempt {}), retrying after the lease: {}",
+                    job.getId(), job.getAttempts(), e.getMessage());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(job.getId())),
+                    new Update().set("lastError", String.valueOf(e.getMessage())), DeletionJob.class);
+        }
+    }
+
+    /**
+     * Deletes the matching documents {@code batchSize} at a time: each round fetches only the
+     * ids and removes them with one {@code deleteMany}, so no single delete holds the collection
+     * for long. The lease is renewed after every batch. Returns false if shutdown stopped it
+     * before everything matching was removed.
+     */
+    private boolean removeAll(DeletionJob job, Class<?> entityClass, Criteria criteria) {
+        Query batch = Query.query(criteria).limit(batchSize);
+        batch.fields().include("_id");
+        long removed = 0;
+        boolean complete = false;
+        while (running) {
+            List<Object> ids = mongoTemplate.find(batch, Document.class,
+                    mongoTemplate.getCollectionName(entityClass)).stream()
+                    .map(document -> document.get("_id"))
+                    .toList();
+            if (ids.isEmpty()) {
+                complete = true;
+                break;
+            }
+            removed += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), entityClass).getDeletedCount();
+            renewLease(job);
+            if (ids.size() < batchSize) {
+                complete = true;
+                break;
+            }
+        }
+        if (removed > 0) {
+            Counter.builder("deletion.cascade.documents")
+                    .description("Dependent documents removed by deletion jobs")
+                    .tag("collection", mongoTemplate.getCollectionName(entityClass))
+                    .register(meterRegistry)
+                    .increment(removed);
+        }
+        return complete;
+    }
+
+    // Crossed off before the release: a crash in between leaks the file instead of releasing it twice
+    private void releaseFile(DeletionJob job, String url) {
+        long pulled = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(job.getId()).and("fileUrls").is(url)),
+                new Update().pull("fileUrls", url), DeletionJob.class).getModifiedCount();
+        if (pulled == 0) {
+            // Another worker took the job over and already released it
+            return;
+        }
+        try {
+            fileStorageService.deleteFile(url);
+        } catch (IOException e) {
+            log.warn("Failed to delete file {} of {}: {}", url, job.getId(), e.getMessage());
+        }
+    }
+
+    private void renewLease(DeletionJob job) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(job.getId())),
+                new Update().set("leaseUntil", LocalDateTime.now().plus(lease)), DeletionJob.class);
+    }
+}
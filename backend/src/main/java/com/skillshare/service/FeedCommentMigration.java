@@ -0,0 +1,93 @@
+package com.skillshare.service;
+
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Seeds {@code commentCount} and the newest-comments preview of feed posts stored before
+ * {@link FeedCommentService} maintained them (their embedded {@code comments} was never kept
+ * in sync and is replaced). Runs in batches with one grouped count and one bulk write per
+ * batch; re-running only picks up posts that still have no {@code commentCount}.
+ */
+@Slf4j
+@Component
+public class FeedCommentMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final int previewSize;
+
+    public FeedCommentMigration(MongoTemplate mongoTemplate,
+                                @Value("${feed.comment-preview-size:" + FeedCommentService.DEFAULT_PREVIEW_SIZE + "}") int previewSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.previewSize = previewSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("commentCount").exists(false));
+        legacy.fields().include("_id");
+
+        int migrated = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<FeedPost> posts = mongoTemplate.stream(legacy, FeedPost.class)) {
+            for (FeedPost post : (Iterable<FeedPost>) posts::iterator) {
+                batch.add(post.getId());
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += migrate(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += migrate(batch);
+        }
+        if (migrated > 0) {
+            log.info("Seeded comment counts and previews of {} feed posts", migrated);
+        }
+    }
+
+    private int migrate(List<String> postIds) {
+        Aggregation counting = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("postId").in(postIds)),
+                Aggregation.group("postId").count().as("count"));
+        Map<String, Long> counts = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(counting, FeedComment.class, Document.class)) {
+            counts.put(group.getString("_id"), ((Number) group.get("count")).longValue());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FeedPost.class);
+        for (String postId : postIds) {
+            long count = counts.getOrDefault(postId, 0L);
+            List<FeedComment> preview = count == 0 ? List.of() : mongoTemplate.find(
+                    Query.query(Criteria.where("postId").is(postId))
+                            .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                            .limit(previewSize), FeedComment.class);
+            // Posts commented on meanwhile are left alone rather than overwriting their newer preview
+            bulk.updateOne(Query.query(Criteria.where("id").is(postId).and("commentCount").exists(false)),
+                    new Update().set("commentCount", count).set("comments", preview));
+        }
+        bulk.execute();
+        return postIds.size();
+    }
+}
@@ -0,0 +1,139 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.repository.mongo.FeedCommentRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Comments on feed posts. Besides the {@code feed_comments} document, every change keeps the
+ * post's {@code commentCount} and its preview of the newest comments ({@code comments}, newest
+ * first, capped at {@code feed.comment-preview-size}) up to date with single atomic updates, so
+ * a feed page renders without fetching each post's comments.
+ */
+@Service
+public class FeedCommentService {
+
+    public static final int DEFAULT_PREVIEW_SIZE = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final FeedCommentRepository feedCommentRepository;
+    private final PostCache postCache;
+    private final FirstPageSnapshots firstPageSnapshots;
+    private final int previewSize;
+
+    public FeedCommentService(MongoTemplate mongoTemplate, FeedCommentRepository feedCommentRepository, PostCache postCache,
+                              FirstPageSnapshots firstPageSnapshots,
+                              @Value("${feed.comment-preview-size:" + DEFAULT_PREVIEW_SIZE + "}") int previewSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.feedCommentRepository = feedCommentRepository;
+        this.postCache = postCache;
+        this.firstPageSnapshots = firstPageSnapshots;
+        this.previewSize = previewSize;
+    }
+
+    public List<FeedComment> getComments(String postId) {
+        return feedCommentRepository.findByPostIdOrderByCreatedAtAsc(postId);
+    }
+
+    /**
+     * Stores the comment and adds it to the post's count and preview. Empty if the post doesn't exist.
+     */
+    public Optional<FeedComment> add(String postId, FeedComment comment) {
+        comment.setId(null);
+        comment.setPostId(postId);
+        comment.onCreate();
+        FeedComment saved = feedCommentRepository.insert(comment);
+
+        UpdateResult result = mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(postId)),
+                new Update().inc("commentCount", 1)
+                        .push("comments").atPosition(Update.Position.FIRST).slice(previewSize).each(saved),
+                FeedPost.class);
+        if (result.getMatchedCount() == 0) {
+            feedCommentRepository.deleteById(saved.getId());
+            return Optional.empty();
+        }
+        postCache.evictFeedPost(postId);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        return Optional.of(saved);
+    }
+
+    /**
+     * Changes the text of a comment, in the preview too when it is shown there.
+     */
+    public Optional<FeedComment> update(String postId, String commentId, String content) {
+        FeedComment updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(commentId).and("postId").is(postId)),
+                new Update().set("content", content).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), FeedComment.class);
+        if (updated == null) {
+            return Optional.empty();
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(postId).and("comments._id").is(embeddedId(commentId))),
+                new Update().set("comments.$.content", updated.getContent())
+                        .set("comments.$.updatedAt", updated.getUpdatedAt()),
+                FeedPost.class);
+        postCache.evictFeedPost(postId);
+        firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        return Optional.of(updated);
+    }
+
+    /**
+     * Removes the comment and takes it out of the post's count and preview. False if it didn't exist.
+     */
+    public boolean delete(String postId, String commentId) {
+        FeedComment removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("id").is(commentId).and("postId").is(postId)), FeedComment.class);
+        if (removed == null) {
+            return false;
+        }
+
+        Query postQuery = Query.query(Criteria.where("id").is(postId));
+        postQuery.fields().include("commentCount", "comments");
+        FeedPost post = mongoTemplate.findAndModify(postQuery,
+                new Update().inc("commentCount", -1).pull("comments", new Document("_id", embeddedId(commentId))),
+                FindAndModifyOptions.options().returnNew(true), FeedPost.class);
+        if (post != null) {
+            int shown = post.getComments() == null ? 0 : post.getComments().size();
+            if (shown < Math.min(post.getCommentCount(), previewSize)) {
+                refillPreview(postId, post.getCommentCount());
+            }
+            postCache.evictFeedPost(postId);
+            firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the preview from {@code feed_comments} after a shown comment was deleted. Only
+     * applied while the count is still {@code commentCount}; if the post changed in between,
+     * that change already moved the preview on.
+     */
+    private void refillPreview(String postId, long commentCount) {
+        List<FeedComment> newest = mongoTemplate.find(Query.query(Criteria.where("postId").is(postId))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(previewSize), FeedComment.class);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(postId).and("commentCount").is(commentCount)),
+                new Update().set("comments", newest), FeedPost.class);
+    }
+
+    // Embedded comments are written with their id converted like a top-level _id
+    private static Object embeddedId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
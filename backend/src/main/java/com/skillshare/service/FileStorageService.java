@@ -1,54 +1,401 @@
 package com.skillshare.service;
 
+import com.skillshare.model.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
 
+/**
+ * Stores uploads under their SHA-256 ({@code /uploads/<type>/<hash>.<ext>}), so identical
+ * content is kept once. The multipart temp file is moved into place rather than re-copied, and
+ * a {@link StoredFile} record counts how many references point at it: {@link #deleteFile} only
+ * removes the bytes when the last one goes.
+ */
+@Slf4j
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    static final String SPOOL_DIR = ".tmp";
+    // Resized copies made by ImageVariantService, named <hash>-w<width>.<ext>
+    static final String VARIANTS_DIR = "posts/variants";
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    private static final int LOCK_STRIPES = 64;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
 
-    public FileStorageService() {
-        // Default constructor
+    private final MongoTemplate mongoTemplate;
+    private final Path uploadRoot;
+    // Serializes store/delete of the same content within this instance
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    // Stores the files of a multi-file upload side by side
+    private final ThreadPoolExecutor storeExecutor;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer storeTimer;
+    private final Counter storeFailures;
+
+    public FileStorageService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                              @Value("${file.upload-dir:uploads}") String uploadDir,
+                              @Value("${file.store-threads:4}") int storeThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue makes the request thread store the file itself instead of piling up work
+        this.storeExecutor = new ThreadPoolExecutor(storeThreads, storeThreads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(storeThreads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "file-store-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.storeExecutor.allowCoreThreadTimeOut(true);
+
+        this.storeTimer = Timer.builder("files.store.duration")
+                .description("Time to spool, hash and move one upload into place")
+                .register(meterRegistry);
+        this.storeFailures = Counter.builder("files.store.failures")
+                .description("Uploads that could not be stored")
+                .register(meterRegistry);
+        Gauge.builder("files.store.queue.depth", storeExecutor, pool -> pool.getQueue().size())
+                .description("Files of multi-file uploads waiting for a store thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores all files in parallel, all or nothing: if any of them fails, the ones already
+     * stored are released again and the first failure is thrown. URLs are in input order.
+     */
+    public List<String> storeAll(List<MultipartFile> files, String type) throws IOException {
+        if (files.size() == 1) {
+            return List.of(storeFile(files.get(0), type));
+        }
+        // Not Future.cancel: a store already running would finish unnoticed and leak its file
+        AtomicBoolean abandoned = new AtomicBoolean();
+        List<Future<String>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            futures.add(storeExecutor.submit(() -> abandoned.get() ? null : storeFile(file, type)));
+        }
+
+        List<String> stored = new ArrayList<>(files.size());
+        IOException failure = null;
+        for (Future<String> future : futures) {
+            try {
+                stored.add(future.get());
+            } catch (ExecutionException e) {
+                failure = asIOException(e.getCause());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = asIOException(e);
+                break;
+            }
+        }
+        if (failure == null) {
+            return stored;
+        }
+
+        // Skip stores that haven't started, wait for running ones, then undo every one that completed
+        abandoned.set(true);
+        for (Future<String> future : futures) {
+            String url = completedUrl(future);
+            if (url != null) {
+                try {
+                    deleteFile(url);
+                } catch (IOException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        storeExecutor.shutdown();
     }
 
     public String storeFile(MultipartFile file, String type) throws IOException {
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir, type);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        long started = System.nanoTime();
+        try {
+            String url = store(file, type);
+            storeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return url;
+        } catch (IOException | RuntimeException e) {
+            storeFailures.increment();
+            throw e;
         }
+    }
 
-        // Generate a unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String filename = UUID.randomUUID().toString() + fileExtension;
+    private String store(MultipartFile file, String type) throws IOException {
+        Path uploadPath = uploadRoot.resolve(type);
+        Files.createDirectories(uploadPath);
+        Path spoolPath = Files.createDirectories(uploadRoot.resolve(SPOOL_DIR));
 
-        // Save the file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        // Same filesystem as the target, so the final move is a rename
+        Path tmp = Files.createTempFile(spoolPath, "upload-", ".part");
+        try {
+            Files.delete(tmp);
+            // Renames the container's spooled temp file when it can instead of copying it
+            file.transferTo(tmp.toFile());
 
-        // Return the relative URL
-        return "/uploads/" + type + "/" + filename;
+            String hash = sha256(tmp);
+            long size = Files.size(tmp);
+            String filename = hash + extension(file.getOriginalFilename());
+            String url = "/uploads/" + type + "/" + filename;
+            Path target = uploadPath.resolve(filename);
+
+            ReentrantLock lock = lockFor(url);
+            lock.lock();
+            try {
+                // Count the reference first: a crash before the move leaks a record, never a live file
+                mongoTemplate.upsert(Query.query(Criteria.where("id").is(url)),
+                        new Update().inc("refs", 1)
+                                .setOnInsert("hash", hash)
+                                .setOnInsert("size", size)
+                                .setOnInsert("createdAt", LocalDateTime.now()),
+                        StoredFile.class);
+                try {
+                    boolean stored = moveIntoPlace(tmp, target);
+                    recordUpload(type, size, stored);
+                } catch (IOException e) {
+                    releaseReference(url);
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return url;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Rate of files.uploaded.bytes is the upload bandwidth; duplicates are counted but take no disk
+    private void recordUpload(String type, long size, boolean stored) {
+        String result = stored ? "stored" : "duplicate";
+        meterRegistry.counter("files.uploaded", "type", type, "result", result).increment();
+        Counter.builder("files.uploaded.bytes")
+                .baseUnit("bytes")
+                .description("Bytes received in uploads")
+                .tags("type", type, "result", result)
+                .register(meterRegistry)
+                .increment(size);
     }
 
     public void deleteFile(String fileUrl) throws IOException {
-        // Extract the file path from the URL
-        String filePath = fileUrl.replace("/uploads/", "");
-        Path path = Paths.get(uploadDir, filePath);
-        
-        // Delete the file if it exists
-        if (Files.exists(path)) {
-            Files.delete(path);
+        Path path = resolve(fileUrl);
+        ReentrantLock lock = lockFor(fileUrl);
+        lock.lock();
+        try {
+            StoredFile record = releaseReference(fileUrl);
+            if (record != null && record.getRefs() > 0) {
+                // Still referenced elsewhere
+                return;
+            }
+            // Last reference, or an upload from before reference counting
+            Files.deleteIfExists(path);
+            deleteVariants(path);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes an upload {@link UploadGarbageCollector} found unreferenced, unless it was referenced
+     * again since: its record must still count {@code expectedRefs} (null for a file without one)
+     * and {@code stillUnreferenced} is re-checked while holding the file's lock. False if kept.
+     */
+    public boolean deleteUnreferenced(String fileUrl, Long expectedRefs, BooleanSupplier stillUnreferenced) throws IOException {
+        Path path = resolve(fileUrl);
+        ReentrantLock lock = lockFor(fileUrl);
+        lock.lock();
+        try {
+            if (!stillUnreferenced.getAsBoolean()) {
+                return false;
+            }
+            if (expectedRefs == null) {
+                if (mongoTemplate.exists(Query.query(Criteria.where("id").is(fileUrl)), StoredFile.class)) {
+                    return false;
+                }
+            } else if (mongoTemplate.remove(Query.query(Criteria.where("id").is(fileUrl).and("refs").is(expectedRefs)),
+                    StoredFile.class).getDeletedCount() == 0) {
+                // Uploaded again meanwhile
+                return false;
+            }
+            Files.deleteIfExists(path);
+            deleteVariants(path);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Path getUploadRoot() {
+        return uploadRoot;
+    }
+
+    // Decrements the count and drops the record at zero; null if the file has no record
+    private StoredFile releaseReference(String url) {
+        StoredFile record = mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(url)),
+                new Update().inc("refs", -1), FindAndModifyOptions.options().returnNew(true), StoredFile.class);
+        if (record != null && record.getRefs() <= 0) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(url).and("refs").lte(0)), StoredFile.class);
+        }
+        return record;
+    }
+
+    private void deleteVariants(Path original) throws IOException {
+        String hash = contentHash(original);
+        Path variantsDir = uploadRoot.resolve(VARIANTS_DIR);
+        if (hash == null || !Files.isDirectory(variantsDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(variantsDir, hash + "-w*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        }
+    }
+
+    /**
+     * SHA-256 a content-addressed upload is named after, or null for older random names.
+     */
+    static String contentHash(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        return CONTENT_HASH.matcher(base).matches() ? base : null;
+    }
+
+    private static String completedUrl(Future<String> future) {
+        if (future.isCancelled()) {
+            return null;
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // Must not leave a store running untracked
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        return cause instanceof IOException io ? io : new IOException("Failed to store file: " + cause.getMessage(), cause);
+    }
+
+    // False when identical content was already in place
+    private static boolean moveIntoPlace(Path tmp, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return false;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, target);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                // Another instance stored the same content first
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Absolute path of an {@code /uploads/...} URL. Rejects anything resolving outside the upload dir.
+     */
+    public Path resolve(String fileUrl) throws IOException {
+        String relative = fileUrl.startsWith("/uploads/") ? fileUrl.substring("/uploads/".length()) : fileUrl;
+        Path path = uploadRoot.resolve(relative).normalize();
+        if (!path.startsWith(uploadRoot) || path.equals(uploadRoot)) {
+            throw new IOException("Invalid file URL: " + fileUrl);
+        }
+        return path;
+    }
+
+    private ReentrantLock lockFor(String url) {
+        return locks[Math.floorMod(url.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String extension(String originalFilename) {
+        if (originalFilename == null || originalFilename.lastIndexOf('.') < 0) {
+            return "";
         }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return SAFE_EXTENSION.matcher(extension).matches() ? "." + extension : "";
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.model.Like;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * First pages of {@code GET /api/posts} and {@code GET /api/feed} (global and per category),
+ * kept as serialized JSON and its gzip, so the usual list request is one buffer write instead
+ * of a query plus a Jackson pass. Writes mark their scope stale and a background worker
+ * rebuilds the stale pages; until it has, a page is still served as long as it was queried
+ * less than {@code feed.snapshot.max-staleness} ago, after that the request queries live.
+ * Only page sizes in {@code feed.snapshot.page-sizes} are kept, and only while they are asked for.
+ */
+@Slf4j
+@Service
+public class FirstPageSnapshots {
+
+    public enum Scope {
+        POSTS, FEED
+    }
+
+    // queriedAt is System.nanoTime() before the query, so the page reflects every earlier write
+    private record Snapshot(byte[] json, byte[] gzip, long queriedAt) {
+    }
+
+    private static final class Slot {
+        private final Scope scope;
+        private final Supplier<?> page;
+        private volatile Snapshot snapshot;
+
+        private Slot(Scope scope, Supplier<?> page) {
+            this.scope = scope;
+            this.page = page;
+        }
+
+        // Builds can finish out of order (live misses and the worker); the newest query wins
+        private synchronized void offer(Snapshot built) {
+            if (snapshot == null || built.queriedAt() - snapshot.queriedAt() > 0) {
+                snapshot = built;
+            }
+        }
+    }
+
+    private static final Pattern REFUSED = Pattern.compile("q=0(\\.0*)?");
+
+    private final ObjectMapper objectMapper;
+    private final Set<Integer> pageSizes;
+    private final long maxStalenessNanos;
+    private final long rebuildDelayMs;
+    private final Cache<String, Slot> slots;
+    private final Map<Scope, AtomicLong> lastWrite = new EnumMap<>(Scope.class);
+    private final ThreadPoolExecutor rebuilder;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Timer rebuildTimer;
+
+    public FirstPageSnapshots(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${feed.snapshot.page-sizes:10,20}") List<Integer> pageSizes,
+                              @Value("${feed.snapshot.max-staleness:2s}") Duration maxStaleness,
+                              @Value("${feed.snapshot.rebuild-delay-ms:100}") long rebuildDelayMs,
+                              @Value("${feed.snapshot.max-keys:64}") long maxKeys,
+                              @Value("${feed.snapshot.idle-expiry:10m}") Duration idleExpiry) {
+        this.objectMapper = objectMapper;
+        this.pageSizes = Set.copyOf(pageSizes);
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.rebuildDelayMs = rebuildDelayMs;
+        this.slots = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        long now = System.nanoTime();
+        for (Scope scope : Scope.values()) {
+            lastWrite.put(scope, new AtomicLong(now));
+        }
+        // One pass at a time plus one queued: writes during a pass are picked up by the next
+        this.rebuilder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "first-page-snapshots");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+
+        this.hits = requests(meterRegistry, "hit");
+        this.staleHits = requests(meterRegistry, "stale");
+        this.misses = requests(meterRegistry, "miss");
+        this.rebuildTimer = Timer.builder("feed.snapshot.rebuild.duration")
+                .description("Time to query and serialize one first page in the background")
+                .register(meterRegistry);
+        Gauge.builder("feed.snapshot.pages", slots, Cache::estimatedSize)
+                .description("First pages currently kept as snapshots")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("feed.snapshot.requests")
+                .description("First page requests by whether a snapshot answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public boolean covers(int pageSize) {
+        return pageSizes.contains(pageSize);
+    }
+
+    /**
+     * Answers a first page from its snapshot. {@code page} loads it (with pending likes applied)
+     * and must give the same result for every request with this scope, category and size.
+     */
+    public ResponseEntity<byte[]> respond(Scope scope, String category, int pageSize, String acceptEncoding,
+                                          Supplier<?> page) {
+        String key = scope + ":" + pageSize + (category == null ? "" : ":" + category);
+        Slot slot = slots.get(key, k -> new Slot(scope, page));
+        Snapshot snapshot = slot.snapshot;
+        if (snapshot != null && isFresh(slot, snapshot)) {
+            hits.increment();
+        } else if (snapshot != null && System.nanoTime() - snapshot.queriedAt() <= maxStalenessNanos) {
+            staleHits.increment();
+        } else {
+            misses.increment();
+            snapshot = build(slot);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+
+    public void invalidate(Scope scope) {
+        lastWrite.get(scope).set(System.nanoTime());
+        rebuilder.execute(this::rebuildStale);
+    }
+
+    /**
+     * Invalidates the scope of a like target ({@link Like#TARGET_POST} or {@link Like#TARGET_FEED_POST}).
+     */
+    public void invalidate(String targetType) {
+        invalidate(Like.TARGET_FEED_POST.equals(targetType) ? Scope.FEED : Scope.POSTS);
+    }
+
+    private boolean isFresh(Slot slot, Snapshot snapshot) {
+        return snapshot.queriedAt() - lastWrite.get(slot.scope).get() > 0;
+    }
+
+    private void rebuildStale() {
+        try {
+            // Lets a burst of writes land in one pass
+            Thread.sleep(rebuildDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Map.Entry<String, Slot> entry : slots.asMap().entrySet()) {
+            Slot slot = entry.getValue();
+            Snapshot snapshot = slot.snapshot;
+            if (snapshot != null && isFresh(slot, snapshot)) {
+                continue;
+            }
+            try {
+                rebuildTimer.record(() -> build(slot));
+            } catch (RuntimeException e) {
+                // Requests fall back to live queries once the old page is too stale
+                log.warn("Failed to rebuild first page {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private Snapshot build(Slot slot) {
+        long queriedAt = System.nanoTime();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(slot.page.get());
+            Snapshot snapshot = new Snapshot(json, gzip(json), queriedAt);
+            slot.offer(snapshot);
+            return snapshot;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize first page", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // gzip (or *) listed without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if ((name.equalsIgnoreCase("gzip") || name.equals("*"))
+                    && (parts.length < 2 || !REFUSED.matcher(parts[1].replace(" ", "")).matches())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
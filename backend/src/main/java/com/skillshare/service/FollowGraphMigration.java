@@ -0,0 +1,60 @@
+package com.skillshare.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Moves follow relationships that older versions embedded in {@code users.following} (full
+ * copies of the followed users) into the {@code follows} collection, then drops the embedded
+ * array. Safe to re-run: following is idempotent and the array is only removed afterwards.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowGraphMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final FollowService followService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("following").exists(true));
+        legacy.fields().include("following._id");
+
+        int migratedUsers = 0;
+        try (Stream<Document> users = mongoTemplate.stream(legacy, Document.class, "users")) {
+            for (Document user : (Iterable<Document>) users::iterator) {
+                Object followerId = user.get("_id");
+                List<Document> following = user.getList("following", Document.class, List.of());
+                for (Document followee : following) {
+                    Object followeeId = followee.get("_id");
+                    if (followeeId != null && !followeeId.equals(followerId)) {
+                        followService.follow(asString(followerId), asString(followeeId));
+                    }
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(followerId)),
+                        new Update().unset("following"), "users");
+                migratedUsers++;
+            }
+        }
+        if (migratedUsers > 0) {
+            log.info("Migrated embedded follow lists of {} users to the follows collection", migratedUsers);
+        }
+    }
+
+    private static String asString(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
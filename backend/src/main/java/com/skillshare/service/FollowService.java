@@ -0,0 +1,108 @@
+package com.skillshare.service;
+
+import com.skillshare.dto.CursorPage;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.dto.UserSummary;
+import com.skillshare.model.Follow;
+import com.skillshare.model.User;
+import com.skillshare.repository.mongo.FollowRepository;
+import com.skillshare.repository.mongo.KeysetQueries;
+import com.skillshare.repository.mongo.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Follow relationships are edges in the {@code follows} collection (unique on follower +
+ * followee). Following or unfollowing touches one edge plus the two users' counters, no matter
+ * how many people either user already follows.
+ */
+@Service
+@RequiredArgsConstructor
+public class FollowService {
+
+    public enum Result { CHANGED, UNCHANGED, USER_NOT_FOUND }
+
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public Result follow(String followerId, String followeeId) {
+        if (!userRepository.existsById(followeeId)) {
+            return Result.USER_NOT_FOUND;
+        }
+        Follow follow = new Follow(followerId, followeeId);
+        follow.onCreate();
+        try {
+            followRepository.insert(follow);
+        } catch (DuplicateKeyException e) {
+            // Already following
+            return Result.UNCHANGED;
+        }
+        adjustCounts(followerId, followeeId, 1);
+        return Result.CHANGED;
+    }
+
+    public Result unfollow(String followerId, String followeeId) {
+        if (followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId) == 0) {
+            return Result.UNCHANGED;
+        }
+        adjustCounts(followerId, followeeId, -1);
+        return Result.CHANGED;
+    }
+
+    public CursorPage<UserSummary> getFollowers(String userId, PageCursor after, int limit) {
+        return page("followeeId", userId, Follow::getFollowerId, after, limit);
+    }
+
+    public CursorPage<UserSummary> getFollowing(String userId, PageCursor after, int limit) {
+        return page("followerId", userId, Follow::getFolloweeId, after, limit);
+    }
+
+    private CursorPage<UserSummary> page(String ownerField, String userId, Function<Follow, String> otherSide,
+                                         PageCursor after, int limit) {
+        Query query = KeysetQueries.newestFirst(new Query(Criteria.where(ownerField).is(userId)), after, limit + 1);
+        List<Follow> edges = mongoTemplate.find(query, Follow.class);
+
+        boolean hasNext = edges.size() > limit;
+        if (hasNext) {
+            edges = edges.subList(0, limit);
+        }
+
+        // One $in lookup for the whole page, projected down to summary fields
+        List<String> ids = edges.stream().map(otherSide).collect(Collectors.toList());
+        Query usersQuery = new Query(Criteria.where("id").in(ids));
+        usersQuery.fields().include("username", "name", "profilePictureUrl");
+        Map<String, User> users = mongoTemplate.find(usersQuery, User.class).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<UserSummary> content = ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(UserSummary::from)
+                .collect(Collectors.toList());
+
+        Follow last = edges.isEmpty() ? null : edges.get(edges.size() - 1);
+        String nextCursor = hasNext ? new PageCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+
+    // Both counters in a single round trip
+    private void adjustCounts(String followerId, String followeeId, int delta) {
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                .updateOne(Query.query(Criteria.where("id").is(followerId)), new Update().inc("followingCount", delta))
+                .updateOne(Query.query(Criteria.where("id").is(followeeId)), new Update().inc("followerCount", delta))
+                .execute();
+    }
+}
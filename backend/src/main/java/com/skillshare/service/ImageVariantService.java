@@ -0,0 +1,217 @@
+package com.skillshare.service;
+
+import com.skillshare.model.ImageVariant;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates smaller copies of uploaded images on a bounded background pool, so feed tiles
+ * don't have to download the original. Variants live under {@code /uploads/posts/variants}
+ * and are named after the original's content hash, which makes regeneration idempotent and
+ * lets {@link FileStorageService} remove them together with the original.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private final FileStorageService fileStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final PostCache postCache;
+    private final FirstPageSnapshots firstPageSnapshots;
+    private final List<Integer> widths;
+    private final ThreadPoolExecutor executor;
+    private final Timer processingTimer;
+    private final Counter rejected;
+
+    public ImageVariantService(FileStorageService fileStorageService, MongoTemplate mongoTemplate, PostCache postCache,
+                               FirstPageSnapshots firstPageSnapshots,
+                               MeterRegistry meterRegistry,
+                               @Value("${images.variants.widths:320,640,1280}") List<Integer> widths,
+                               @Value("${images.variants.threads:2}") int threads,
+                               @Value("${images.variants.queue-capacity:200}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.mongoTemplate = mongoTemplate;
+        this.postCache = postCache;
+        this.firstPageSnapshots = firstPageSnapshots;
+        this.widths = widths.stream().sorted().toList();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Resizing must not compete with request threads
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        this.processingTimer = Timer.builder("images.variants.duration")
+                .description("Time to decode one image and write all of its variants")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("images.variants.rejected")
+                .description("Images skipped because the variant queue was full")
+                .register(meterRegistry);
+        Gauge.builder("images.variants.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Images waiting for variant generation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues variant generation for the images and returns immediately. When {@code postId}
+     * is given the variants are added to that post's {@code imageVariants} as they are written.
+     */
+    public void generateAsync(String postId, List<String> sourceUrls) {
+        for (String sourceUrl : sourceUrls) {
+            try {
+                executor.execute(() -> processingTimer.record(() -> generate(postId, sourceUrl)));
+            } catch (RejectedExecutionException e) {
+                // The original is still served; the post just has no smaller copies of it
+                rejected.increment();
+                log.warn("Variant queue full, skipping {}", sourceUrl);
+            }
+        }
+    }
+
+    /**
+     * URLs the variants of {@code sourceUrl} will have once generated: only widths below the
+     * original's, and none for images ImageIO cannot decode.
+     */
+    public List<ImageVariant> plannedVariants(String sourceUrl) {
+        String hash = FileStorageService.contentHash(Path.of(sourceUrl));
+        if (hash == null) {
+            return List.of();
+        }
+        int sourceWidth = sourceWidth(sourceUrl);
+        String format = outputFormat(sourceUrl);
+        return widths.stream()
+                .filter(width -> width < sourceWidth)
+                .map(width -> new ImageVariant(sourceUrl, width,
+                        "/uploads/" + FileStorageService.VARIANTS_DIR + "/" + hash + "-w" + width + "." + format))
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String postId, String sourceUrl) {
+        try {
+            List<ImageVariant> planned = plannedVariants(sourceUrl);
+            if (planned.isEmpty()) {
+                return;
+            }
+            BufferedImage source = ImageIO.read(fileStorageService.resolve(sourceUrl).toFile());
+            if (source == null) {
+                // Not a format ImageIO can decode (e.g. webp)
+                return;
+            }
+
+            List<ImageVariant> written = new ArrayList<>();
+            for (ImageVariant variant : planned) {
+                Path target = fileStorageService.resolve(variant.getUrl());
+                if (!Files.exists(target)) {
+                    write(resize(source, variant.getWidth()), outputFormat(sourceUrl), target);
+                }
+                written.add(variant);
+            }
+
+            if (postId != null && !written.isEmpty()) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(postId)),
+                        new Update().addToSet("imageVariants").each(written.toArray()), Post.class);
+                postCache.evictPost(postId);
+                firstPageSnapshots.invalidate(FirstPageSnapshots.Scope.POSTS);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate variants for {}: {}", sourceUrl, e.getMessage());
+        }
+    }
+
+    // Reads only the header, so listing variants at upload time costs no decode; -1 if unreadable
+    private int sourceWidth(String sourceUrl) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(fileStorageService.resolve(sourceUrl).toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return -1;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // Halves repeatedly before the final step; a single bilinear jump from a large image aliases badly
+    static BufferedImage resize(BufferedImage source, int targetWidth) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "variant-", ".part");
+        try {
+            if (!ImageIO.write(image, format, tmp.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // PNG keeps transparency; everything else becomes JPEG
+    private static String outputFormat(String sourceUrl) {
+        return sourceUrl.toLowerCase().endsWith(".png") || sourceUrl.toLowerCase().endsWith(".gif") ? "png" : "jpg";
+    }
+}
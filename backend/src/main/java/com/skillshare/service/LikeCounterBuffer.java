@@ -0,0 +1,304 @@
+package com.skillshare.service;
+
+import com.mongodb.MongoConnectionPoolClearedException;
+import com.mongodb.MongoSecurityException;
+import com.mongodb.MongoServerUnavailableException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for like counters. Like/unlike deltas are absorbed in a striped
+ * {@link LongAdder} per target and flushed to Mongo as unordered bulk {@code $inc} batches
+ * every {@code likes.buffer.flush-interval-ms}, so a viral post costs one write per flush
+ * instead of one write per like. Readers add {@link #pending} to the stored count; a delta
+ * stays pending until Mongo has acknowledged its {@code $inc}, so a flush in progress never
+ * shows as a dip. The price is the opposite error for the length of one bulk write: once
+ * Mongo has applied it but before the acknowledgement arrives, readers count those likes twice.
+ * <p>
+ * A delta is only retried when its update is known not to have been applied: the updates a
+ * bulk write reports as failed, or a batch that never reached a server. Any other failure
+ * (a socket read timeout, a write concern error, ...) may have been applied, so its deltas are
+ * dropped rather than risk a second {@code $inc}; the stored count can then be short by that
+ * batch, counted in {@code likes.buffer.flush.dropped}, but never inflated permanently.
+ */
+@Slf4j
+@Service
+public class LikeCounterBuffer {
+
+    private static final int MAX_BATCH = 1000;
+    // Flushes a counter must stay at zero before its entry is dropped from the map
+    private static final int IDLE_FLUSHES_BEFORE_RETIRE = 120;
+    // How long retired counters keep being drained, to catch writers that raced the removal
+    private static final long RETIRED_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final PostCache postCache;
+    private final FirstPageSnapshots firstPageSnapshots;
+    private final Map<String, Map<String, Counter>> counters = Map.of(
+            Like.TARGET_POST, new ConcurrentHashMap<>(),
+            Like.TARGET_FEED_POST, new ConcurrentHashMap<>());
+    private final ConcurrentLinkedQueue<RetiredCounter> retired = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+    private final io.micrometer.core.instrument.Counter dropped;
+    private volatile long lastFlushNanos = System.nanoTime();
+
+    public LikeCounterBuffer(MongoTemplate mongoTemplate, PostCache postCache, FirstPageSnapshots firstPageSnapshots,
+                             MeterRegistry meterRegistry,
+                             @Value("${likes.buffer.flush-interval-ms:500}") long flushIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.postCache = postCache;
+        this.firstPageSnapshots = firstPageSnapshots;
+        this.batchSize = DistributionSummary.builder("likes.buffer.flush.batch.size")
+                .description("Number of documents updated per like counter flush")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("likes.buffer.flush.duration")
+                .description("Time spent writing one like counter flush to Mongo")
+                .register(meterRegistry);
+        this.dropped = io.micrometer.core.instrument.Counter.builder("likes.buffer.flush.dropped")
+                .description("Like counter updates given up after a failure that may have applied them")
+                .register(meterRegistry);
+        Gauge.builder("likes.buffer.flush.lag", this, buffer -> buffer.secondsSinceLastFlush())
+                .description("Seconds since the last successful like counter flush")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("likes.buffer.pending.targets", this, buffer -> buffer.pendingTargets())
+                .description("Targets with like deltas not yet written to Mongo")
+                .register(meterRegistry);
+        log.info("Like counter buffer flushing every {} ms", flushIntervalMs);
+    }
+
+    public void add(String targetType, String targetId, long delta) {
+        countersFor(targetType).computeIfAbsent(targetId, id -> new Counter()).adder.add(delta);
+    }
+
+    /**
+     * Delta accepted for the target but not yet written to Mongo.
+     */
+    public long pending(String targetType, String targetId) {
+        Counter counter = countersFor(targetType).get(targetId);
+        return counter == null ? 0 : counter.adder.sum();
+    }
+
+    public void applyPending(Post post) {
+        if (post != null) {
+            post.setLikes((int) (post.getLikes() + pending(Like.TARGET_POST, post.getId())));
+        }
+    }
+
+    public void applyPending(FeedPost post) {
+        if (post != null) {
+            post.setLikes((int) (post.getLikes() + pending(Like.TARGET_FEED_POST, post.getId())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${likes.buffer.flush-interval-ms:500}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        // Anything still pending after a failed final flush is lost, so make it visible
+        if (pendingTargets() > 0) {
+            log.error("Shutting down with {} like counters that could not be flushed", pendingTargets());
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            boolean written = flushTarget(Like.TARGET_POST, Post.class);
+            written &= flushTarget(Like.TARGET_FEED_POST, FeedPost.class);
+            if (written) {
+                lastFlushNanos = System.nanoTime();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean flushTarget(String targetType, Class<?> entityClass) {
+        Map<String, Counter> map = countersFor(targetType);
+        List<Delta> deltas = new ArrayList<>();
+
+        for (Map.Entry<String, Counter> entry : map.entrySet()) {
+            Counter counter = entry.getValue();
+            // Left in the adder until written, see acknowledge()
+            long delta = counter.adder.sum();
+            if (delta != 0) {
+                counter.idleFlushes = 0;
+                deltas.add(new Delta(entry.getKey(), counter, delta));
+            } else if (++counter.idleFlushes >= IDLE_FLUSHES_BEFORE_RETIRE && map.remove(entry.getKey(), counter)) {
+                retired.add(new RetiredCounter(targetType, entry.getKey(), counter, System.nanoTime()));
+            }
+        }
+
+        long now = System.nanoTime();
+        for (Iterator<RetiredCounter> it = retired.iterator(); it.hasNext(); ) {
+            RetiredCounter r = it.next();
+            if (!r.targetType.equals(targetType)) {
+                continue;
+            }
+            long delta = drain(r.counter.adder);
+            if (delta != 0) {
+                // A writer raced the removal; move its delta onto the live counter
+                add(targetType, r.targetId, delta);
+            }
+            if (now - r.retiredAtNanos > RETIRED_GRACE_NANOS) {
+                it.remove();
+            }
+        }
+
+        boolean written = true;
+        for (int from = 0; from < deltas.size(); from += MAX_BATCH) {
+            written &= write(targetType, entityClass, deltas.subList(from, Math.min(from + MAX_BATCH, deltas.size())));
+        }
+        return written;
+    }
+
+    private boolean write(String targetType, Class<?> entityClass, List<Delta> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        for (Delta delta : batch) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(delta.targetId)),
+                    new Update().inc("likes", delta.delta));
+        }
+        try {
+            BulkWriteResult result = flushTimer.recordCallable(bulk::execute);
+            batchSize.record(batch.size());
+            if (result != null && result.wasAcknowledged() && result.getMatchedCount() < batch.size()) {
+                log.debug("{} of {} like counter updates matched no {}", batch.size() - result.getMatchedCount(),
+                        batch.size(), entityClass.getSimpleName());
+            }
+            acknowledge(targetType, batch, Set.of());
+            return true;
+        } catch (BulkOperationException e) {
+            // Unordered: everything but the reported errors was applied and must not be $inc'd again
+            Set<Integer> failed = e.getErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+            log.warn("Failed to flush {} of {} like counters for {}: {}", failed.size(), batch.size(),
+                    entityClass.getSimpleName(), e.getMessage());
+            acknowledge(targetType, batch, failed);
+            return false;
+        } catch (Exception e) {
+            if (neverSent(e)) {
+                // Nothing was written; the deltas are still in the adders for the next flush
+                log.warn("Failed to flush {} like counters for {}: {}", batch.size(), entityClass.getSimpleName(),
+                        e.getMessage());
+                return false;
+            }
+            // Possibly applied: a retry could count these likes twice, so they are given up instead
+            log.error("Outcome of flushing {} like counters for {} is unknown, not retrying them: {}", batch.size(),
+                    entityClass.getSimpleName(), e.getMessage());
+            dropped.increment(batch.size());
+            acknowledge(targetType, batch, Set.of());
+            return false;
+        }
+    }
+
+    // Failures raised before the bulk write reached a server (selecting one, opening or
+    // authenticating a connection), which therefore cannot have applied any of it
+    static boolean neverSent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoTimeoutException || cause instanceof MongoSocketOpenException
+                    || cause instanceof MongoSecurityException || cause instanceof MongoConnectionPoolClearedException
+                    || cause instanceof MongoServerUnavailableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Takes written deltas out of pending; the failed indexes stay for the next flush
+    private void acknowledge(String targetType, List<Delta> batch, Set<Integer> failed) {
+        if (failed.size() == batch.size()) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (failed.contains(i)) {
+                continue;
+            }
+            Delta delta = batch.get(i);
+            delta.counter.adder.add(-delta.delta);
+            // Cached copies hold the old stored count, which readers would no longer add the delta to
+            postCache.evict(targetType, delta.targetId);
+        }
+        // A first page queried before the $inc landed but serialized after this has neither the
+        // stored nor the pending delta; it must not count as fresh
+        firstPageSnapshots.invalidate(targetType);
+    }
+
+    // Takes what is currently in the adder without losing concurrent increments
+    private static long drain(LongAdder adder) {
+        long value = adder.sum();
+        if (value != 0) {
+            adder.add(-value);
+        }
+        return value;
+    }
+
+    private Map<String, Counter> countersFor(String targetType) {
+        Map<String, Counter> map = counters.get(targetType);
+        if (map == null) {
+            throw new IllegalArgumentException("Unknown like target type: " + targetType);
+        }
+        return map;
+    }
+
+    private double secondsSinceLastFlush() {
+        return (System.nanoTime() - lastFlushNanos) / 1_000_000_000.0;
+    }
+
+    private long pendingTargets() {
+        return counters.values().stream()
+                .flatMap(map -> map.values().stream())
+                .filter(counter -> counter.adder.sum() != 0)
+                .count();
+    }
+
+    private static final class Counter {
+        final LongAdder adder = new LongAdder();
+        // Only touched by the flushing thread
+        int idleFlushes;
+    }
+
+    private record Delta(String targetId, Counter counter, long delta) {
+    }
+
+    private record RetiredCounter(String targetType, String targetId, Counter counter, long retiredAtNanos) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.skillshare.service;
+
+import com.skillshare.dto.LikeResponse;
+import com.skillshare.model.Like;
+import com.skillshare.repository.mongo.LikeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Likes are recorded in a per-user ledger ({@code likes}, unique on user + target) and the
+ * counter on the target document is only moved when the ledger actually changed. This makes
+ * repeated likes/unlikes no-ops and keeps the counter exact under concurrency. Counter deltas
+ * go through {@link LikeCounterBuffer}, which writes them back as batched {@code $inc}s.
+ */
+@Service
+@RequiredArgsConstructor
+public class LikeService {
+
+    private final LikeRepository likeRepository;
+    private final PostCache postCache;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final FirstPageSnapshots firstPageSnapshots;
+
+    /**
+     * Returns empty when the target does not exist.
+     */
+    public Optional<LikeResponse> like(String userId, String targetType, String targetId) {
+        if (!targetExists(targetType, targetId)) {
+            return Optional.empty();
+        }
+
+        Like like = new Like(userId, targetType, targetId);
+        like.onCreate();
+        try {
+            likeRepository.insert(like);
+        } catch (DuplicateKeyException e) {
+            // Already liked by this user
+            return Optional.of(new LikeResponse(targetId, true, false));
+        }
+
+        likeCounterBuffer.add(targetType, targetId, 1);
+        firstPageSnapshots.invalidate(targetType);
+        return Optional.of(new LikeResponse(targetId, true, true));
+    }
+
+    public LikeResponse unlike(String userId, String targetType, String targetId) {
+        long removed = likeRepository.deleteByUserIdAndTargetTypeAndTargetId(userId, targetType, targetId);
+        if (removed == 0) {
+            // Not liked by this user
+            return new LikeResponse(targetId, false, false);
+        }
+        likeCounterBuffer.add(targetType, targetId, -1);
+        firstPageSnapshots.invalidate(targetType);
+        return new LikeResponse(targetId, false, true);
+    }
+
+    private boolean targetExists(String targetType, String targetId) {
+        switch (targetType) {
+            case Like.TARGET_POST:
+                return postCache.postExists(targetId);
+            case Like.TARGET_FEED_POST:
+                return postCache.feedPostExists(targetId);
+            default:
+                throw new IllegalArgumentException("Unknown like target type: " + targetType);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process pub/sub for the notification SSE stream. An idle subscriber is just an async
+ * servlet response plus a small queue, so no request thread is held while it waits. Events are
+ * written by a small dispatcher pool; a subscriber that falls {@code notifications.stream.queue-capacity}
+ * events behind is disconnected and catches up from the notifications collection when it
+ * reconnects with {@code Last-Event-ID}. A gap larger than the queue is not replayed; the
+ * client gets a {@value #RESYNC_EVENT_NAME} event instead and should reload its inbox.
+ */
+@Slf4j
+@Service
+public class NotificationHub {
+
+    static final String EVENT_NAME = "notification";
+    static final String RESYNC_EVENT_NAME = "resync";
+    private static final int REPLAY_PAGE_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ThreadPoolExecutor dispatcher;
+    private final Counter overflows;
+
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final int maxConnectionsPerUser;
+
+    public NotificationHub(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                           @Value("${notifications.stream.timeout:30m}") Duration timeout,
+                           @Value("${notifications.stream.queue-capacity:256}") int queueCapacity,
+                           @Value("${notifications.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+                           @Value("${notifications.stream.dispatcher-threads:4}") int dispatcherThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeoutMs = timeout.toMillis();
+        this.queueCapacity = queueCapacity;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10_000), runnable -> {
+                    Thread thread = new Thread(runnable, "notification-sse-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.overflows = Counter.builder("notifications.stream.overflows")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.connections", connections, AtomicInteger::get)
+                .description("Open notification SSE connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user. If {@code lastEventId} is given, notifications created after
+     * it are replayed before live events, without gaps or duplicates.
+     */
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        // Event ids are notification ObjectIds; anything else cannot be resumed from
+        String resumeFrom = lastEventId != null && ObjectId.isValid(lastEventId) ? lastEventId : null;
+        Subscriber subscriber = new Subscriber(userId, emitter, resumeFrom != null);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        Set<Subscriber> userSubscribers = subscribers.compute(userId, (id, set) -> {
+            Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        connections.incrementAndGet();
+        if (userSubscribers.size() > maxConnectionsPerUser) {
+            // Drop another of the user's connections rather than letting one user hold an unbounded number
+            userSubscribers.stream().filter(s -> s != subscriber).findFirst().ifPresent(Subscriber::close);
+        }
+
+        if (resumeFrom != null) {
+            // Registered first so nothing published while we query is lost
+            subscriber.finishReplay(missedSince(userId, resumeFrom));
+        }
+        return emitter;
+    }
+
+    public void publish(Notification notification) {
+        Set<Subscriber> userSubscribers = subscribers.get(notification.getUserId());
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.enqueue(notification));
+        }
+    }
+
+    // Keeps proxies from closing idle connections and detects clients that went away
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        dispatcher.shutdown();
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    // Pages until the gap is closed; more than a queue's worth is cheaper to reload as an inbox
+    private Replay missedSince(String userId, String lastEventId) {
+        List<Notification> missed = new ArrayList<>();
+        String after = lastEventId;
+        try {
+            while (true) {
+                Query query = new Query(Criteria.where("userId").is(userId).and("id").gt(after))
+                        .with(Sort.by(Sort.Direction.ASC, "id"))
+                        .limit(REPLAY_PAGE_SIZE);
+                List<Notification> page = mongoTemplate.find(query, Notification.class);
+                missed.addAll(page);
+                if (page.size() < REPLAY_PAGE_SIZE) {
+                    return new Replay(missed, true);
+                }
+                if (missed.size() >= queueCapacity) {
+                    return new Replay(List.of(), false);
+                }
+                after = page.get(page.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not replay notifications for user {} after {}: {}", userId, lastEventId, e.getMessage());
+            return new Replay(List.of(), false);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            if (set.remove(subscriber)) {
+                connections.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscriber {
+        final String userId;
+        final SseEmitter emitter;
+        // Guards queue and replaying
+        final ReentrantLock lock = new ReentrantLock();
+        final Deque<Outgoing> queue = new ArrayDeque<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        boolean replaying;
+
+        Subscriber(String userId, SseEmitter emitter, boolean replaying) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.replaying = replaying;
+        }
+
+        void enqueue(Notification notification) {
+            boolean overflow;
+            boolean live;
+            lock.lock();
+            try {
+                overflow = queue.size() >= queueCapacity;
+                if (!overflow) {
+                    queue.add(Outgoing.of(notification));
+                }
+                live = !replaying;
+            } finally {
+                lock.unlock();
+            }
+            if (overflow) {
+                overflows.increment();
+                close();
+            } else if (live) {
+                scheduleDrain();
+            }
+        }
+
+        void finishReplay(Replay replay) {
+            lock.lock();
+            try {
+                Deque<Outgoing> published = new ArrayDeque<>(queue);
+                queue.clear();
+                if (!replay.complete()) {
+                    // Ahead of the live events, so the reloaded inbox is merged with them and not the reverse
+                    queue.add(Outgoing.resync());
+                }
+                Set<String> replayed = new HashSet<>();
+                for (Notification notification : replay.missed()) {
+                    queue.add(Outgoing.of(notification));
+                    replayed.add(notification.getId());
+                }
+                // Published while the replay query ran; skip what the query already returned
+                for (Outgoing outgoing : published) {
+                    if (!replayed.contains(outgoing.id())) {
+                        queue.add(outgoing);
+                    }
+                }
+                replaying = false;
+            } finally {
+                lock.unlock();
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            lock.lock();
+            try {
+                if (replaying || !queue.isEmpty()) {
+                    return;
+                }
+                queue.add(Outgoing.heartbeat());
+            } finally {
+                lock.unlock();
+            }
+            scheduleDrain();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                emitter.complete();
+                unsubscribe(this);
+            }
+        }
+
+        private void scheduleDrain() {
+            if (closed.get() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                overflows.increment();
+                close();
+            }
+        }
+
+        // Only one dispatcher thread drains a given subscriber at a time
+        private void drain() {
+            try {
+                while (!closed.get()) {
+                    Outgoing outgoing = poll();
+                    if (outgoing == null) {
+                        break;
+                    }
+                    emitter.send(outgoing.event());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                closed.set(true);
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have arrived between the last poll and clearing the flag
+            lock.lock();
+            boolean more;
+            try {
+                more = !queue.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+            if (more) {
+                scheduleDrain();
+            }
+        }
+
+        private Outgoing poll() {
+            lock.lock();
+            try {
+                return queue.poll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Replay(List<Notification> missed, boolean complete) {
+    }
+
+    // id is null for heartbeats and resyncs
+    private record Outgoing(String id, SseEmitter.SseEventBuilder event) {
+        static Outgoing heartbeat() {
+            return new Outgoing(null, SseEmitter.event().comment("heartbeat"));
+        }
+
+        static Outgoing resync() {
+            return new Outgoing(null, SseEmitter.event().name(RESYNC_EVENT_NAME).data(""));
+        }
+
+        static Outgoing of(Notification notification) {
+            return new Outgoing(notification.getId(),
+                    SseEmitter.event().id(notification.getId()).name(EVENT_NAME).data(notification));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.skillshare.service;
+
+import com.mongodb.DBRef;
+import com.skillshare.model.Notification;
+import com.skillshare.model.NotificationCounter;
+import com.skillshare.repository.mongo.NotificationMongoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites notifications stored by older versions, which pointed at their recipient through a
+ * {@code user} DBRef, into the indexed {@code userId} form and seeds the unread counters of the
+ * users it touched. Re-running only picks up notifications that still have no {@code userId}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationMongoRepository notificationRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query legacy = new Query(Criteria.where("userId").exists(false).and("user").exists(true));
+        legacy.fields().include("user");
+
+        Set<String> users = new HashSet<>();
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Document> notifications = mongoTemplate.stream(legacy, Document.class, "notifications")) {
+            for (Document notification : (Iterable<Document>) notifications::iterator) {
+                batch.add(notification);
+                if (batch.size() == BATCH_SIZE) {
+                    migrate(batch, users);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrate(batch, users);
+        }
+
+        for (String userId : users) {
+            mongoTemplate.upsert(Query.query(Criteria.where("id").is(userId)),
+                    new Update().set("unread", notificationRepository.countByUserIdAndReadFalse(userId)),
+                    NotificationCounter.class);
+        }
+        if (!users.isEmpty()) {
+            log.info("Migrated notifications of {} users to the userId form", users.size());
+        }
+    }
+
+    private void migrate(List<Document> batch, Set<String> users) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+        for (Document notification : batch) {
+            String userId = refId(notification.get("user"));
+            Update update = new Update().unset("user");
+            if (userId != null) {
+                update.set("userId", userId);
+                users.add(userId);
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(notification.get("_id"))), update);
+        }
+        bulk.execute();
+    }
+
+    private static String refId(Object ref) {
+        if (!(ref instanceof DBRef dbRef)) {
+            return null;
+        }
+        Object id = dbRef.getId();
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
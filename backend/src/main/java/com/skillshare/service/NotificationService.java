@@ -0,0 +1,114 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.dto.CursorPage;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Notification;
+import com.skillshare.model.NotificationCounter;
+import com.skillshare.repository.mongo.KeysetQueries;
+import com.skillshare.repository.mongo.NotificationMongoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notification inbox. Every change to a notification's read state goes through here so the
+ * per-user unread counter in {@code notification_counters} moves by exactly the number of
+ * documents that actually changed.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+
+    private final NotificationMongoRepository notificationRepository;
+    private final MongoTemplate mongoTemplate;
+    private final NotificationHub notificationHub;
+
+    public Notification create(String userId, String type, String message, String targetId) {
+        Notification notification = new Notification(userId, type, message, targetId);
+        notification.onCreate();
+        notification = notificationRepository.insert(notification);
+        adjustUnread(userId, 1);
+        notificationHub.publish(notification);
+        return notification;
+    }
+
+    public CursorPage<Notification> getInbox(String userId, PageCursor after, int limit) {
+        Query query = KeysetQueries.newestFirst(new Query(Criteria.where("userId").is(userId)), after, limit + 1);
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+
+        boolean hasNext = notifications.size() > limit;
+        if (hasNext) {
+            notifications = notifications.subList(0, limit);
+        }
+        Notification last = notifications.isEmpty() ? null : notifications.get(notifications.size() - 1);
+        String nextCursor = hasNext ? new PageCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        return new CursorPage<>(notifications, nextCursor, hasNext);
+    }
+
+    public long getUnreadCount(String userId) {
+        NotificationCounter counter = mongoTemplate.findById(userId, NotificationCounter.class);
+        if (counter != null) {
+            return Math.max(0, counter.getUnread());
+        }
+        // No counter yet (user predates it): count once and seed it
+        long unread = notificationRepository.countByUserIdAndReadFalse(userId);
+        try {
+            mongoTemplate.insert(new NotificationCounter(userId, unread));
+        } catch (DuplicateKeyException e) {
+            // Seeded concurrently
+        }
+        return unread;
+    }
+
+    /**
+     * Marks the given notifications of the user as read. Ids belonging to someone else or
+     * already read are ignored. Returns how many were changed.
+     */
+    public long markRead(String userId, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return markRead(Query.query(Criteria.where("userId").is(userId).and("id").in(ids).and("read").is(false)), userId);
+    }
+
+    public long markAllRead(String userId) {
+        return markRead(Query.query(Criteria.where("userId").is(userId).and("read").is(false)), userId);
+    }
+
+    /**
+     * Returns false if the user has no such notification.
+     */
+    public boolean delete(String userId, String id) {
+        Notification removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("id").is(id).and("userId").is(userId)), Notification.class);
+        if (removed == null) {
+            return false;
+        }
+        if (!removed.isRead()) {
+            adjustUnread(userId, -1);
+        }
+        return true;
+    }
+
+    private long markRead(Query unread, String userId) {
+        UpdateResult result = mongoTemplate.updateMulti(unread, new Update().set("read", true), Notification.class);
+        long changed = result.getModifiedCount();
+        if (changed > 0) {
+            adjustUnread(userId, -changed);
+        }
+        return changed;
+    }
+
+    private void adjustUnread(String userId, long delta) {
+        mongoTemplate.upsert(Query.query(Criteria.where("id").is(userId)),
+                new Update().inc("unread", delta), NotificationCounter.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.skillshare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.config.CacheMetrics;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * Read-through cache of posts and feed posts by id (Caffeine, so W-TinyLFU admission keeps the
+ * popular ones). Every write path evicts the entry it changed: updates, like counter flushes,
+ * image and variant changes, comment previews and deletes. {@code posts.cache.ttl} bounds how
+ * long a write made by another instance can go unseen. Callers get their own copy, since they
+ * adjust it (e.g. pending likes) before serializing it.
+ */
+@Service
+public class PostCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, Post> posts;
+    private final Cache<String, FeedPost> feedPosts;
+
+    public PostCache(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                     @Value("${posts.cache.max-size:10000}") long maxSize,
+                     @Value("${posts.cache.ttl:60s}") Duration ttl) {
+        this.mongoTemplate = mongoTemplate;
+        this.posts = CacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, Post>build(), "posts");
+        this.feedPosts = CacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, FeedPost>build(), "feed-posts");
+    }
+
+    // Missing ids load as null, which Caffeine doesn't store
+    public Optional<Post> getPost(String id) {
+        return Optional.ofNullable(posts.get(id, key -> mongoTemplate.findById(key, Post.class))).map(PostCache::copy);
+    }
+
+    public Optional<FeedPost> getFeedPost(String id) {
+        return Optional.ofNullable(feedPosts.get(id, key -> mongoTemplate.findById(key, FeedPost.class))).map(PostCache::copy);
+    }
+
+    public boolean postExists(String id) {
+        return posts.get(id, key -> mongoTemplate.findById(key, Post.class)) != null;
+    }
+
+    public boolean feedPostExists(String id) {
+        return feedPosts.get(id, key -> mongoTemplate.findById(key, FeedPost.class)) != null;
+    }
+
+    public void evictPost(String id) {
+        posts.invalidate(id);
+    }
+
+    public void evictFeedPost(String id) {
+        feedPosts.invalidate(id);
+    }
+
+    /**
+     * Evicts a like target ({@link Like#TARGET_POST} or {@link Like#TARGET_FEED_POST}).
+     */
+    public void evict(String targetType, String id) {
+        if (Like.TARGET_FEED_POST.equals(targetType)) {
+            evictFeedPost(id);
+        } else {
+            evictPost(id);
+        }
+    }
+
+    private static Post copy(Post post) {
+        return new Post(post.getId(), post.getDescription(),
+                post.getImageUrls() == null ? null : new ArrayList<>(post.getImageUrls()),
+                post.getImageVariants() == null ? null : new ArrayList<>(post.getImageVariants()),
+                post.getVideoUrl(), post.getCreatedAt(), post.getUpdatedAt(), post.getLikes());
+    }
+
+    private static FeedPost copy(FeedPost post) {
+        return new FeedPost(post.getId(), post.getTitle(), post.getContent(), post.getCategory(),
+                post.getSourceId(), post.getSourceType(), post.getLikes(),
+                post.getComments() == null ? null : new ArrayList<>(post.getComments()),
+                post.getCommentCount(), post.getCreatedAt(), post.getUpdatedAt());
+    }
+}
@@ -0,0 +1,74 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Backfills {@code createdAt} on posts stored by older versions without one, from the creation
+ * time in their ObjectId. Keyset paging over (createdAt, _id) cannot reach such posts nor hand
+ * out a cursor for them. Re-running only picks up posts that still have no {@code createdAt}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostCreatedAtMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Matches both a missing field and an explicit null
+        Query legacy = new Query(Criteria.where("createdAt").is(null));
+        legacy.fields().include("_id");
+
+        int migrated = 0;
+        List<ObjectId> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Document> posts = mongoTemplate.stream(legacy, Document.class, "posts")) {
+            for (Document post : (Iterable<Document>) posts::iterator) {
+                if (!(post.get("_id") instanceof ObjectId id)) {
+                    log.warn("Post {} has no ObjectId to take a creation time from", post.get("_id"));
+                    continue;
+                }
+                batch.add(id);
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += migrate(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += migrate(batch);
+        }
+        if (migrated > 0) {
+            log.info("Backfilled createdAt on {} posts from their ObjectId", migrated);
+        }
+    }
+
+    private int migrate(List<ObjectId> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        for (ObjectId id : batch) {
+            // Leaves a post alone if it got a createdAt since it was read
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("createdAt").is(null)),
+                    new Update().set("createdAt", id.getDate()));
+        }
+        bulk.execute();
+        return batch.size();
+    }
+}
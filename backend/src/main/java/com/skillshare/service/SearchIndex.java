@@ -0,0 +1,255 @@
+package com.skillshare.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index with BM25 ranking. Terms are kept sorted, so a prefix query is one
+ * range scan over the term dictionary. All query terms must match; the last one (and any ending
+ * in {@code *}) also matches as a prefix, which makes type-ahead work. Persistence is handled by
+ * {@link SearchService}, which journals every change.
+ */
+class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Prefix expansions rank below an exact match of the same term
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}*]+");
+
+    /**
+     * One indexed document. {@code terms} maps each term to its (field-weighted) frequency.
+     */
+    record Entry(String type, String id, String category, String title, String snippet,
+                 long createdAt, Map<String, Integer> terms) {
+
+        String key() {
+            return type + ":" + id;
+        }
+
+        int length() {
+            return terms.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    record Hit(Entry entry, double score) {
+    }
+
+    record Results(List<Hit> hits, int total) {
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private long totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(entry.key());
+            entries.put(entry.key(), entry);
+            entry.terms().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(entry.key(), frequency));
+            totalLength += entry.length();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Used while rebuilding: whatever the request paths indexed meanwhile is newer
+    boolean putIfAbsent(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            if (entries.containsKey(entry.key())) {
+                return false;
+            }
+            put(entry);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String type, String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type + ":" + id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String key) {
+        Entry old = entries.remove(key);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms().keySet()) {
+            Map<String, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(key);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= old.length();
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Entry> entries() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(entries.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches first (ties newest first). {@code type} and {@code category} are optional filters.
+     */
+    Results search(String query, String type, String category, int offset, int limit) {
+        List<String> terms = tokenize(query, true);
+        if (terms.isEmpty()) {
+            return new Results(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean wildcard = term.endsWith("*");
+                String stem = wildcard ? term.substring(0, term.length() - 1) : term;
+                if (stem.length() < MIN_TOKEN_LENGTH) {
+                    continue;
+                }
+                Map<String, Double> termScores = score(stem, wildcard || i == terms.size() - 1);
+                scores = scores == null ? termScores : intersect(scores, termScores);
+                if (scores.isEmpty()) {
+                    return new Results(List.of(), 0);
+                }
+            }
+            if (scores == null) {
+                return new Results(List.of(), 0);
+            }
+
+            Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score)
+                    .thenComparingLong(hit -> hit.entry().createdAt());
+            // Min-heap of the best offset + limit hits
+            PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+            int total = 0;
+            for (Map.Entry<String, Double> scored : scores.entrySet()) {
+                Entry entry = entries.get(scored.getKey());
+                if (entry == null || (type != null && !type.equals(entry.type()))
+                        || (category != null && !category.equalsIgnoreCase(entry.category()))) {
+                    continue;
+                }
+                total++;
+                best.add(new Hit(entry, scored.getValue()));
+                if (best.size() > offset + limit) {
+                    best.poll();
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(best);
+            ranked.sort(ranking.reversed());
+            List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+            return new Results(List.copyOf(page), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // BM25 of one query term per document; with a prefix every expansion matches (so hits and
+    // totals are exact) and the best-scoring one counts
+    private Map<String, Double> score(String term, boolean prefix) {
+        Map<String, Double> scores = new HashMap<>();
+        double averageLength = entries.isEmpty() ? 1 : (double) totalLength / entries.size();
+        NavigableMap<String, Map<String, Integer>> matches = prefix
+                ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                : postings.subMap(term, true, term, true);
+        for (Map.Entry<String, Map<String, Integer>> match : matches.entrySet()) {
+            Map<String, Integer> docs = match.getValue();
+            double idf = Math.log(1 + (entries.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+            double weight = match.getKey().equals(term) ? 1 : PREFIX_WEIGHT;
+            for (Map.Entry<String, Integer> doc : docs.entrySet()) {
+                Entry entry = entries.get(doc.getKey());
+                int frequency = doc.getValue();
+                double norm = K1 * (1 - B + B * entry.length() / averageLength);
+                double score = weight * idf * frequency * (K1 + 1) / (frequency + norm);
+                scores.merge(doc.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static Map<String, Double> intersect(Map<String, Double> a, Map<String, Double> b) {
+        Map<String, Double> smaller = a.size() <= b.size() ? a : b;
+        Map<String, Double> larger = smaller == a ? b : a;
+        Map<String, Double> both = new HashMap<>();
+        smaller.forEach((key, score) -> {
+            Double other = larger.get(key);
+            if (other != null) {
+                both.put(key, score + other);
+            }
+        });
+        return both;
+    }
+
+    /**
+     * Term frequencies of the given texts, each counted {@code weight} times (e.g. 2 for titles).
+     */
+    static Map<String, Integer> terms(Map<String, Integer> weightedTexts) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        weightedTexts.forEach((text, weight) -> {
+            for (String token : tokenize(text, false)) {
+                terms.merge(token, weight, Integer::sum);
+            }
+        });
+        return terms;
+    }
+
+    // Lower-cased, accents stripped, split on anything that isn't a letter or digit
+    static List<String> tokenize(String text, boolean keepWildcards) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!keepWildcards) {
+                token = token.replace("*", "");
+            } else if (token.indexOf('*') >= 0) {
+                // Only a trailing * means anything
+                token = token.replace("*", "") + (token.endsWith("*") ? "*" : "");
+            }
+            if (token.replace("*", "").length() >= MIN_TOKEN_LENGTH && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,239 @@
+package com.skillshare.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a {@link SearchIndex} on disk as a compressed snapshot plus a journal of the changes
+ * made since. Writing a snapshot first rotates the journal to {@code journal.old}, so changes
+ * keep being journaled while the snapshot is written; {@code journal.old} goes once the
+ * snapshot is in place. Loading replays whichever journals exist.
+ * Replaying is idempotent and a torn last record is ignored, so a crash at any point loses at
+ * most the change that was being appended.
+ */
+@Slf4j
+class SearchIndexStore implements Closeable {
+
+    private static final int MAGIC = 0x53534958; // "SSIX"
+    private static final int VERSION = 1;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path snapshot;
+    private final Path journal;
+    private final Path rotatedJournal;
+    private DataOutputStream journalOut;
+    private int journaled;
+    private boolean snapshotting;
+
+    SearchIndexStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.snapshot = dir.resolve("snapshot.bin");
+        this.journal = dir.resolve("journal.log");
+        this.rotatedJournal = dir.resolve("journal.old");
+    }
+
+    /**
+     * Fills the index from disk. False when there is no usable snapshot and it has to be rebuilt.
+     */
+    synchronized boolean load(SearchIndex index) {
+        if (!Files.exists(snapshot)) {
+            return false;
+        }
+        try (DataInputStream in = open(snapshot, true)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.info("Search index snapshot has an old format; rebuilding");
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                index.put(readEntry(in));
+            }
+        } catch (IOException e) {
+            log.warn("Search index snapshot unreadable, rebuilding: {}", e.getMessage());
+            return false;
+        }
+        replay(rotatedJournal, index);
+        replay(journal, index);
+        return true;
+    }
+
+    private void replay(Path file, SearchIndex index) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int replayed = 0;
+        try (DataInputStream in = open(file, false)) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException end) {
+                    break;
+                }
+                if (op == PUT) {
+                    index.put(readEntry(in));
+                } else if (op == REMOVE) {
+                    index.remove(in.readUTF(), in.readUTF());
+                } else {
+                    throw new IOException("Unknown journal record " + op);
+                }
+                replayed++;
+            }
+        } catch (IOException e) {
+            // Most likely the record being appended when the process died
+            log.warn("Stopped replaying {} after {} records: {}", file.getFileName(), replayed, e.getMessage());
+        }
+    }
+
+    synchronized void appendPut(SearchIndex.Entry entry) throws IOException {
+        DataOutputStream out = journalOut();
+        out.writeByte(PUT);
+        writeEntry(out, entry);
+        out.flush();
+        journaled++;
+    }
+
+    synchronized void appendRemove(String type, String id) throws IOException {
+        DataOutputStream out = journalOut();
+        out.writeByte(REMOVE);
+        out.writeUTF(type);
+        out.writeUTF(id);
+        out.flush();
+        journaled++;
+    }
+
+    synchronized int journaled() {
+        return journaled;
+    }
+
+    /**
+     * Starts a new journal and returns false if a snapshot is already being written. Must be
+     * called together with taking the entries the snapshot will contain.
+     */
+    synchronized boolean rotate() throws IOException {
+        if (snapshotting) {
+            return false;
+        }
+        closeJournal();
+        if (Files.exists(journal)) {
+            if (Files.exists(rotatedJournal)) {
+                // Left by a snapshot that never finished; its records must stay ahead of these
+                try (OutputStream out = Files.newOutputStream(rotatedJournal, StandardOpenOption.APPEND)) {
+                    Files.copy(journal, out);
+                }
+                Files.delete(journal);
+            } else {
+                Files.move(journal, rotatedJournal, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        journaled = 0;
+        snapshotting = true;
+        return true;
+    }
+
+    /**
+     * Writes the entries taken at the last {@link #rotate()} and drops the rotated journal.
+     */
+    void writeSnapshot(List<SearchIndex.Entry> entries) throws IOException {
+        try {
+            write(entries);
+        } finally {
+            synchronized (this) {
+                snapshotting = false;
+            }
+        }
+    }
+
+    private void write(List<SearchIndex.Entry> entries) throws IOException {
+        Path tmp = snapshot.resolveSibling("snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (SearchIndex.Entry entry : entries) {
+                writeEntry(out, entry);
+            }
+        }
+        try {
+            Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(rotatedJournal);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeJournal();
+    }
+
+    private DataOutputStream journalOut() throws IOException {
+        if (journalOut == null) {
+            journalOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journal,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+        return journalOut;
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalOut != null) {
+            journalOut.close();
+            journalOut = null;
+        }
+    }
+
+    private static DataInputStream open(Path file, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return new DataInputStream(new BufferedInputStream(gzip ? new GZIPInputStream(in, 64 * 1024) : in));
+    }
+
+    private static void writeEntry(DataOutputStream out, SearchIndex.Entry entry) throws IOException {
+        out.writeUTF(entry.type());
+        out.writeUTF(entry.id());
+        out.writeUTF(entry.category() == null ? "" : entry.category());
+        out.writeUTF(entry.title());
+        out.writeUTF(entry.snippet());
+        out.writeLong(entry.createdAt());
+        out.writeInt(entry.terms().size());
+        for (Map.Entry<String, Integer> term : entry.terms().entrySet()) {
+            out.writeUTF(term.getKey());
+            out.writeInt(term.getValue());
+        }
+    }
+
+    private static SearchIndex.Entry readEntry(DataInputStream in) throws IOException {
+        String type = in.readUTF();
+        String id = in.readUTF();
+        String category = in.readUTF();
+        String title = in.readUTF();
+        String snippet = in.readUTF();
+        long createdAt = in.readLong();
+        int count = in.readInt();
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            terms.put(in.readUTF(), in.readInt());
+        }
+        return new SearchIndex.Entry(type, id, category.isEmpty() ? null : category, title, snippet, createdAt, terms);
+    }
+}
@@ -0,0 +1,300 @@
+package com.skillshare.service;
+
+import com.skillshare.dto.SearchHit;
+import com.skillshare.dto.SearchResults;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.LearningPlan;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over post descriptions, feed post titles/content/categories and learning
+ * plan titles/topics. The controllers index every create and update and drop every delete as
+ * it happens; each change is also journaled under {@code search.index-dir}, so a restart loads
+ * the last snapshot and replays the journal instead of re-reading every collection. A full
+ * rebuild from Mongo only happens when there is no usable snapshot, in the background.
+ */
+@Slf4j
+@Service
+public class SearchService implements ApplicationRunner {
+
+    public static final String TYPE_POST = Like.TARGET_POST;
+    public static final String TYPE_FEED_POST = Like.TARGET_FEED_POST;
+    public static final String TYPE_LEARNING_PLAN = "learning_plan";
+    public static final Set<String> TYPES = Set.of(TYPE_POST, TYPE_FEED_POST, TYPE_LEARNING_PLAN);
+
+    private static final int TITLE_LENGTH = 120;
+    private static final int SNIPPET_LENGTH = 200;
+    // Titles count twice as much as body text
+    private static final int TITLE_WEIGHT = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final SearchIndex index = new SearchIndex();
+    private final SearchIndexStore store;
+    private final int snapshotEvery;
+    private final long rebuildRetryMs;
+    private final boolean loaded;
+    private final ThreadPoolExecutor background;
+
+    // Deletes seen while rebuilding, so documents streamed before their delete don't come back
+    private final Set<String> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    // Until a rebuild succeeds the index only holds what was written since startup
+    private volatile boolean rebuilding;
+
+    private final Timer queryTimer;
+
+    public SearchService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                         @Value("${search.index-dir:search-index}") String indexDir,
+                         @Value("${search.snapshot-every:10000}") int snapshotEvery,
+                         @Value("${search.rebuild-retry-ms:60000}") long rebuildRetryMs) throws IOException {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotEvery = snapshotEvery;
+        this.rebuildRetryMs = rebuildRetryMs;
+        this.store = new SearchIndexStore(Paths.get(indexDir).toAbsolutePath().normalize());
+        this.background = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "search-index");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.queryTimer = Timer.builder("search.query.duration")
+                .description("Time to answer one search query from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", index, SearchIndex::size)
+                .description("Documents in the search index")
+                .register(meterRegistry);
+
+        // Before any request can index something, so nothing newer is overwritten by the replay
+        long started = System.nanoTime();
+        this.loaded = store.load(index);
+        this.rebuilding = !loaded;
+        if (loaded) {
+            log.info("Loaded search index with {} documents in {} ms", index.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            // Folds the replayed journal into a new snapshot, which also retires a torn last record
+            snapshot();
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!loaded) {
+            background.execute(this::rebuildUntilComplete);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        background.shutdownNow();
+        try {
+            // A background snapshot still finishing would race the final one below and the next start's load
+            if (!background.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Search index background work did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!rebuilding) {
+            snapshot();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            log.warn("Failed to close search journal: {}", e.getMessage());
+        }
+    }
+
+    public SearchResults search(String query, String type, String category, int page, int size) {
+        SearchIndex.Results results = queryTimer.record(() -> index.search(query, type, category, page * size, size));
+        List<SearchHit> hits = results.hits().stream()
+                .map(hit -> new SearchHit(hit.entry().type(), hit.entry().id(), hit.entry().title(),
+                        hit.entry().snippet(), hit.entry().category(), toDateTime(hit.entry().createdAt()), hit.score()))
+                .toList();
+        return new SearchResults(hits, results.total(), (page + 1) * size < results.total());
+    }
+
+    public void indexPost(Post post) {
+        put(entryFor(post));
+    }
+
+    public void indexFeedPost(FeedPost post) {
+        put(entryFor(post));
+    }
+
+    public void indexLearningPlan(LearningPlan plan) {
+        put(entryFor(plan));
+    }
+
+    public void remove(String type, String id) {
+        if (rebuilding) {
+            removedDuringRebuild.add(type + ":" + id);
+        }
+        synchronized (store) {
+            index.remove(type, id);
+            try {
+                store.appendRemove(type, id);
+            } catch (IOException e) {
+                log.warn("Failed to journal removal of {} {} from the search index: {}", type, id, e.getMessage());
+            }
+        }
+        maybeSnapshot();
+    }
+
+    // Index and journal change together, so the journal order is the order the index saw
+    private void put(SearchIndex.Entry entry) {
+        synchronized (store) {
+            index.put(entry);
+            try {
+                store.appendPut(entry);
+            } catch (IOException e) {
+                log.warn("Failed to journal {} in the search index: {}", entry.key(), e.getMessage());
+            }
+        }
+        maybeSnapshot();
+    }
+
+    private void maybeSnapshot() {
+        if (!rebuilding && store.journaled() >= snapshotEvery) {
+            background.execute(this::snapshot);
+        }
+    }
+
+    void snapshot() {
+        // load() trusts any snapshot, so an incomplete index must never be persisted
+        if (rebuilding) {
+            return;
+        }
+        List<SearchIndex.Entry> entries;
+        try {
+            synchronized (store) {
+                if (!store.rotate()) {
+                    return;
+                }
+                entries = index.entries();
+            }
+            store.writeSnapshot(entries);
+        } catch (IOException e) {
+            log.warn("Failed to write search index snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void rebuildUntilComplete() {
+        while (!rebuild()) {
+            try {
+                Thread.sleep(rebuildRetryMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Goes straight to the index: the snapshot at the end is what persists it. Safe to repeat
+    // after a failure, since whatever the request paths wrote meanwhile still wins
+    boolean rebuild() {
+        long started = System.nanoTime();
+        try {
+            Query posts = new Query();
+            posts.fields().include("description", "createdAt");
+            rebuildFrom(mongoTemplate.stream(posts, Post.class), SearchService::entryFor);
+
+            Query feedPosts = new Query();
+            feedPosts.fields().include("title", "content", "category", "createdAt");
+            rebuildFrom(mongoTemplate.stream(feedPosts, FeedPost.class), SearchService::entryFor);
+
+            // Without the user reference, which would be resolved for every plan
+            Query plans = new Query();
+            plans.fields().include("title", "topics", "createdAt");
+            rebuildFrom(mongoTemplate.stream(plans, LearningPlan.class), SearchService::entryFor);
+
+            rebuilding = false;
+            removedDuringRebuild.clear();
+            snapshot();
+            log.info("Rebuilt search index with {} documents in {} s", index.size(),
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Search index rebuild failed, retrying in {} ms; until then only documents written "
+                    + "since startup are searchable", rebuildRetryMs, e);
+            return false;
+        }
+    }
+
+    // Whatever the request paths indexed or removed meanwhile is newer than the streamed copy
+    private <T> void rebuildFrom(Stream<T> documents, Function<T, SearchIndex.Entry> toEntry) {
+        try (documents) {
+            documents.map(toEntry)
+                    .filter(entry -> !removedDuringRebuild.contains(entry.key()))
+                    .forEach(index::putIfAbsent);
+        }
+    }
+
+    static SearchIndex.Entry entryFor(Post post) {
+        return entry(TYPE_POST, post.getId(), null, post.getDescription(), post.getDescription(),
+                post.getCreatedAt(), Map.of(nullToEmpty(post.getDescription()), 1));
+    }
+
+    static SearchIndex.Entry entryFor(FeedPost post) {
+        Map<String, Integer> texts = new LinkedHashMap<>();
+        texts.merge(nullToEmpty(post.getTitle()), TITLE_WEIGHT, Integer::sum);
+        texts.merge(nullToEmpty(post.getContent()), 1, Integer::sum);
+        texts.merge(nullToEmpty(post.getCategory()), 1, Integer::sum);
+        return entry(TYPE_FEED_POST, post.getId(), post.getCategory(), post.getTitle(), post.getContent(),
+                post.getCreatedAt(), texts);
+    }
+
+    static SearchIndex.Entry entryFor(LearningPlan plan) {
+        String topics = plan.getTopics() == null ? "" : String.join(", ", plan.getTopics());
+        Map<String, Integer> texts = new LinkedHashMap<>();
+        texts.merge(nullToEmpty(plan.getTitle()), TITLE_WEIGHT, Integer::sum);
+        texts.merge(topics, 1, Integer::sum);
+        return entry(TYPE_LEARNING_PLAN, plan.getId(), null, plan.getTitle(), topics, plan.getCreatedAt(), texts);
+    }
+
+    private static SearchIndex.Entry entry(String type, String id, String category, String title, String snippet,
+                                           LocalDateTime createdAt, Map<String, Integer> texts) {
+        long created = createdAt == null ? 0 : createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return new SearchIndex.Entry(type, id, category, truncate(title, TITLE_LENGTH), truncate(snippet, SNIPPET_LENGTH),
+                created, SearchIndex.terms(texts));
+    }
+
+    private static LocalDateTime toDateTime(long epochMilli) {
+        return epochMilli == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+    private static String truncate(String text, int length) {
+        String value = nullToEmpty(text).strip();
+        return value.length() <= length ? value : value.substring(0, length - 1) + "…";
+    }
+
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,343 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Comment;
+import com.skillshare.model.DeletionJob;
+import com.skillshare.model.Post;
+import com.skillshare.model.StoredFile;
+import com.skillshare.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deletes uploads nothing points at: files from failed multi-file posts, images removed from a
+ * post under a different URL, direct uploads that were never used. The upload tree is walked
+ * file by file (never listed whole) and checked {@code uploads.gc.batch-size} files at a time
+ * against every field that stores upload URLs, at most {@code uploads.gc.files-per-second}.
+ * Files younger than {@code uploads.gc.grace} are left alone, so an upload whose post is still
+ * being created is never taken.
+ */
+@Slf4j
+@Service
+public class UploadGarbageCollector {
+
+    /** A field holding upload URLs, either a single URL or a list of them. */
+    record ReferenceSource(Class<?> entity, String field) {
+    }
+
+    static final List<ReferenceSource> SOURCES = List.of(
+            new ReferenceSource(Post.class, "imageUrls"),
+            new ReferenceSource(Post.class, "videoUrl"),
+            new ReferenceSource(User.class, "profilePictureUrl"),
+            new ReferenceSource(Comment.class, "author.profilePictureUrl"),
+            // Still to be released by the deletion job, which removes the file itself
+            new ReferenceSource(DeletionJob.class, "fileUrls"));
+
+    public record Report(long scanned, long deleted, long reclaimedBytes) {
+    }
+
+    private record Candidate(String url, Path path, long size) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final FileStorageService fileStorageService;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int batchSize;
+    private final int filesPerSecond;
+    private final boolean dryRun;
+    // Sweeps can take a while; they must not hold up the shared scheduler thread
+    private final ThreadPoolExecutor sweeper;
+    private volatile boolean running = true;
+
+    private final Timer sweepTimer;
+    private final Counter deletedFiles;
+    private final Counter reclaimedBytes;
+
+    public UploadGarbageCollector(MongoTemplate mongoTemplate, FileStorageService fileStorageService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${uploads.gc.enabled:true}") boolean enabled,
+                                  @Value("${uploads.gc.grace:24h}") Duration grace,
+                                  @Value("${uploads.gc.batch-size:500}") int batchSize,
+                                  @Value("${uploads.gc.files-per-second:200}") int filesPerSecond,
+                                  @Value("${uploads.gc.dry-run:false}") boolean dryRun) {
+        this.mongoTemplate = mongoTemplate;
+        this.fileStorageService = fileStorageService;
+        this.enabled = enabled;
+        this.grace = grace;
+        this.batchSize = batchSize;
+        this.filesPerSecond = filesPerSecond;
+        this.dryRun = dryRun;
+        this.sweeper = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), runnable -> {
+                    Thread thread = new Thread(runnable, "upload-gc");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        this.sweepTimer = Timer.builder("uploads.gc.duration")
+                .description("Time to sweep the upload directory once")
+                .register(meterRegistry);
+        this.deletedFiles = Counter.builder("uploads.gc.deleted")
+                .description("Unreferenced uploads deleted")
+                .register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("uploads.gc.reclaimed")
+                .description("Disk space freed by deleting unreferenced uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${uploads.gc.initial-delay-ms:600000}",
+            fixedDelayString = "${uploads.gc.interval-ms:21600000}")
+    public void trigger() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // A sweep still running makes this one redundant
+            if (sweeper.getActiveCount() == 0) {
+                sweeper.execute(() -> sweepTimer.record(this::sweep));
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        sweeper.shutdownNow();
+    }
+
+    public Report sweep() {
+        Path root = fileStorageService.getUploadRoot();
+        if (!Files.isDirectory(root)) {
+            return new Report(0, 0, 0);
+        }
+        Instant cutoff = Instant.now().minus(grace);
+        Sweep sweep = new Sweep(root, cutoff);
+        try {
+            Files.walkFileTree(root, sweep);
+            sweep.flush();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload sweep stopped after {} files: {}", sweep.scanned, e.getMessage());
+        }
+        Report report = new Report(sweep.scanned, sweep.deleted, sweep.reclaimed);
+        log.info("Upload sweep{}: scanned {} files, deleted {} unreferenced ({} bytes reclaimed)",
+                dryRun ? " (dry run)" : "", report.scanned(), report.deleted(), report.reclaimedBytes());
+        return report;
+    }
+
+    // Collects old files into batches while the tree is walked
+    private final class Sweep extends SimpleFileVisitor<Path> {
+        private final Path root;
+        private final Path spool;
+        private final Instant cutoff;
+        private final List<Candidate> batch = new ArrayList<>(batchSize);
+        private long batchStartedNanos = System.nanoTime();
+        private long scanned;
+        private long deleted;
+        private long reclaimed;
+
+        Sweep(Path root, Instant cutoff) {
+            this.root = root;
+            this.spool = root.resolve(FileStorageService.SPOOL_DIR);
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            if (!running || Thread.currentThread().isInterrupted()) {
+                return FileVisitResult.TERMINATE;
+            }
+            scanned++;
+            if (!attrs.isRegularFile() || !attrs.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                return FileVisitResult.CONTINUE;
+            }
+            if (file.startsWith(spool)) {
+                // Left behind by an upload that died mid-way; never referenced by anything
+                if (!dryRun) {
+                    Files.deleteIfExists(file);
+                }
+                count(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+            String url = "/uploads/" + root.relativize(file).toString().replace('\\', '/');
+            batch.add(new Candidate(url, file, attrs.size()));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        // Deleted meanwhile, e.g. the variants of an original this sweep just removed
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            return FileVisitResult.CONTINUE;
+        }
+
+        void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Candidate> originals = new ArrayList<>();
+            List<Candidate> variants = new ArrayList<>();
+            for (Candidate candidate : batch) {
+                (isVariant(candidate.url()) ? variants : originals).add(candidate);
+            }
+            Set<String> referenced = referencedUrls(originals.stream().map(Candidate::url).toList());
+            Set<String> liveHashes = storedHashes(variants.stream().map(c -> variantHash(c.url())).toList());
+            Map<String, Long> refs = recordedRefs(originals.stream().map(Candidate::url).toList());
+
+            for (Candidate candidate : originals) {
+                if (!referenced.contains(candidate.url())
+                        && delete(candidate, refs.get(candidate.url()), () -> !isReferenced(candidate.url()))) {
+                    count(candidate.size());
+                }
+            }
+            for (Candidate candidate : variants) {
+                // A variant lives as long as an upload with its content does
+                String hash = variantHash(candidate.url());
+                if (!liveHashes.contains(hash)
+                        && delete(candidate, null, () -> hash == null || !hashStored(hash))) {
+                    count(candidate.size());
+                }
+            }
+            batch.clear();
+            throttle();
+        }
+
+        private boolean delete(Candidate candidate, Long expectedRefs,
+                               BooleanSupplier stillUnreferenced) throws IOException {
+            if (dryRun) {
+                return stillUnreferenced.getAsBoolean();
+            }
+            return fileStorageService.deleteUnreferenced(candidate.url(), expectedRefs, stillUnreferenced);
+        }
+
+        private void count(long size) {
+            deleted++;
+            reclaimed += size;
+            if (!dryRun) {
+                deletedFiles.increment();
+                reclaimedBytes.increment(size);
+            }
+        }
+
+        // Spreads the database lookups and deletes so a sweep never competes with requests for long
+        private void throttle() {
+            long minimumNanos = TimeUnit.SECONDS.toNanos(batchSize) / Math.max(1, filesPerSecond);
+            long remaining = minimumNanos - (System.nanoTime() - batchStartedNanos);
+            if (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batchStartedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The ones among {@code urls} that some document still points at: one indexed {@code $in}
+     * lookup per reference field.
+     */
+    Set<String> referencedUrls(List<String> urls) {
+        Set<String> referenced = new HashSet<>();
+        if (urls.isEmpty()) {
+            return referenced;
+        }
+        Set<String> wanted = new HashSet<>(urls);
+        for (ReferenceSource source : SOURCES) {
+            Query query = Query.query(Criteria.where(source.field()).in(urls));
+            query.fields().include(source.field());
+            for (Document document : mongoTemplate.find(query, Document.class,
+                    mongoTemplate.getCollectionName(source.entity()))) {
+                collect(document, source.field().split("\\."), 0, wanted, referenced);
+            }
+        }
+        return referenced;
+    }
+
+    private boolean isReferenced(String url) {
+        return SOURCES.stream().anyMatch(source ->
+                mongoTemplate.exists(Query.query(Criteria.where(source.field()).is(url)), source.entity()));
+    }
+
+    private Map<String, Long> recordedRefs(List<String> urls) {
+        Map<String, Long> refs = new HashMap<>();
+        if (!urls.isEmpty()) {
+            for (StoredFile record : mongoTemplate.find(Query.query(Criteria.where("id").in(urls)), StoredFile.class)) {
+                refs.put(record.getId(), record.getRefs());
+            }
+        }
+        return refs;
+    }
+
+    private Set<String> storedHashes(List<String> hashes) {
+        Set<String> stored = new HashSet<>();
+        List<String> known = hashes.stream().filter(hash -> hash != null).distinct().toList();
+        if (!known.isEmpty()) {
+            Query query = Query.query(Criteria.where("hash").in(known));
+            query.fields().include("hash");
+            mongoTemplate.find(query, StoredFile.class).forEach(record -> stored.add(record.getHash()));
+        }
+        return stored;
+    }
+
+    private boolean hashStored(String hash) {
+        return mongoTemplate.exists(Query.query(Criteria.where("hash").is(hash)), StoredFile.class);
+    }
+
+    private static boolean isVariant(String url) {
+        return url.startsWith("/uploads/" + FileStorageService.VARIANTS_DIR + "/");
+    }
+
+    // <hash>-w<width>.<ext>; null for anything else in the variants directory
+    static String variantHash(String url) {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        int suffix = name.indexOf("-w");
+        return suffix < 0 ? null : FileStorageService.contentHash(Path.of(name.substring(0, suffix)));
+    }
+
+    // Walks a dotted path through nested documents and arrays, keeping the wanted values
+    private static void collect(Object value, String[] path, int depth, Set<String> wanted, Set<String> found) {
+        if (value instanceof List<?> list) {
+            list.forEach(item -> collect(item, path, depth, wanted, found));
+        } else if (depth < path.length && value instanceof Document document) {
+            collect(document.get(path[depth]), path, depth + 1, wanted, found);
+        } else if (depth == path.length && value instanceof String url && wanted.contains(url)) {
+            found.add(url);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.skillshare.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (e.g. the last release against this build) benchmark by
+ * benchmark. A result counts as a regression when it is worse by more than
+ * {@code --threshold} percent and by more than both runs' error margins combined; any
+ * regression makes the process exit with status 1. Run through the {@code benchmark-compare}
+ * Maven profile.
+ */
+public final class BenchmarkComparator {
+
+    private BenchmarkComparator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        String baselineFile = options.get("baseline");
+        String currentFile = options.get("current");
+        if (baselineFile == null || baselineFile.isEmpty() || currentFile == null || currentFile.isEmpty()) {
+            System.err.println("Usage: BenchmarkComparator --baseline=<jmh json> --current=<jmh json> [--threshold=10]");
+            System.exit(2);
+        }
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "10"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(new File(baselineFile)));
+        Map<String, JsonNode> current = index(mapper.readTree(new File(currentFile)));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", entry.getKey(), "-", score(entry.getValue()), "new");
+                continue;
+            }
+            Comparison comparison = compare(before, entry.getValue(), threshold);
+            System.out.printf(Locale.ROOT, "%-80s %14s %14s %+8.1f%%%s%n", entry.getKey(), score(before),
+                    score(entry.getValue()), comparison.worsePercent(), comparison.regression() ? "  REGRESSION" : "");
+            if (comparison.regression()) {
+                regressions.add(entry.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf(Locale.ROOT, "%n%d regression(s) above %.1f%%%n", regressions.size(), threshold);
+            System.exit(1);
+        }
+        System.out.println("\nNo regressions");
+    }
+
+    /**
+     * {@code worsePercent} is positive when the current run is slower, whatever the benchmark mode.
+     */
+    record Comparison(double worsePercent, boolean regression) {
+    }
+
+    static Comparison compare(JsonNode before, JsonNode now, double thresholdPercent) {
+        JsonNode a = before.path("primaryMetric");
+        JsonNode b = now.path("primaryMetric");
+        double scoreBefore = a.path("score").asDouble();
+        double scoreNow = b.path("score").asDouble();
+        // Throughput: higher is better; every time-based mode: lower is better
+        boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+        double worse = higherIsBetter ? scoreBefore - scoreNow : scoreNow - scoreBefore;
+        double worsePercent = scoreBefore == 0 ? 0 : worse / scoreBefore * 100;
+        double noise = errorOf(a) + errorOf(b);
+        return new Comparison(worsePercent, worsePercent > thresholdPercent && worse > noise);
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        // JMH reports NaN when there are too few samples for an interval
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    // benchmark name plus sorted params, e.g. FileStorageBenchmark.storeFile{bytes=16384,content=unique}
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new TreeMap<>();
+        for (JsonNode result : results) {
+            String name = result.path("benchmark").asText().replace("com.skillshare.benchmark.", "");
+            Map<String, String> params = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = result.path("params").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            byKey.put(params.isEmpty() ? name : name + params.toString().replace(" ", ""), result);
+        }
+        return byKey;
+    }
+
+    private static String score(JsonNode result) {
+        JsonNode metric = result.path("primaryMetric");
+        return String.format(Locale.ROOT, "%.3f %s", metric.path("score").asDouble(), metric.path("scoreUnit").asText());
+    }
+}
@@ -0,0 +1,81 @@
+package com.skillshare.benchmark;
+
+import com.skillshare.service.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link FileStorageService#storeFile} for several upload sizes, with Mongo mocked out so
+ * only the disk and hashing work is measured. {@code unique} stores new content every call;
+ * {@code duplicate} re-uploads the same bytes and takes the deduplication path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FileStorageBenchmark {
+
+    @Param({"16384", "1048576", "8388608"})
+    public int bytes;
+
+    @Param({"unique", "duplicate"})
+    public String content;
+
+    private Path uploadDir;
+    private FileStorageService storage;
+    private byte[] data;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        uploadDir = Files.createTempDirectory("storage-bench");
+        storage = new FileStorageService(mock(MongoTemplate.class), new SimpleMeterRegistry(), uploadDir.toString(), 1);
+        data = new byte[bytes];
+        new Random(42).nextBytes(data);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearStoredFiles() throws Exception {
+        FileSystemUtils.deleteRecursively(uploadDir.resolve("posts"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.shutdown();
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public String storeFile() throws Exception {
+        if ("unique".equals(content)) {
+            // Changes the hash without a full copy of the payload
+            ByteBuffer.wrap(data).putLong(0, ++sequence);
+        }
+        return storage.storeFile(new MockMultipartFile("files", "image.jpg", "image/jpeg", data), "posts");
+    }
+}
@@ -0,0 +1,259 @@
+package com.skillshare.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Closed-loop HTTP load against a running instance: {@code --concurrency} workers issue GETs
+ * round-robin over {@code --endpoints} back to back, and after {@code --warmup} every latency
+ * is recorded for {@code --duration}. Prints throughput and latency percentiles per endpoint,
+ * writes them to {@code --out} as JSON and, given {@code --baseline=<earlier json>}, prints the
+ * difference to that run. Run through the {@code loadtest} Maven profile.
+ */
+public final class HttpLoadDriver {
+
+    private HttpLoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8081");
+        List<String> endpoints = Arrays.asList(options.getOrDefault("endpoints", "/api/posts,/api/feed").split(","));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        Duration measured = duration(options.getOrDefault("duration", "30s"));
+        String label = options.getOrDefault("label", "run");
+
+        Map<String, Object> report = run(baseUrl, endpoints, concurrency, warmup, measured, label);
+        print(report);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String out = options.get("out");
+        if (out != null && !out.isEmpty()) {
+            mapper.writeValue(new File(out), report);
+            System.out.println("Results written to " + out);
+        }
+        String baseline = options.get("baseline");
+        if (baseline != null && !baseline.isEmpty()) {
+            compare(mapper.readTree(new File(baseline)), mapper.valueToTree(report));
+        }
+    }
+
+    static Map<String, Object> run(String baseUrl, List<String> endpoints, int concurrency,
+                                   Duration warmup, Duration measured, String label) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<HttpRequest> requests = endpoints.stream()
+                .map(path -> HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build())
+                .toList();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + measured.toNanos();
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, requests, i, measureFrom, end);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+
+        double seconds = measured.toNanos() / 1e9;
+        Map<String, Object> endpointStats = new LinkedHashMap<>();
+        for (int e = 0; e < endpoints.size(); e++) {
+            LongList all = new LongList();
+            long errors = 0;
+            for (Worker worker : workers) {
+                all.addAll(worker.latencies[e]);
+                errors += worker.errors[e];
+            }
+            endpointStats.put(endpoints.get(e), stats(all, errors, seconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("baseUrl", baseUrl);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", seconds);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("endpoints", endpointStats);
+        return report;
+    }
+
+    static Map<String, Object> stats(LongList latencies, long errors, double seconds) {
+        long[] sorted = latencies.toSortedArray();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", sorted.length);
+        stats.put("errors", errors);
+        stats.put("throughput", sorted.length / seconds);
+        stats.put("p50Ms", percentile(sorted, 50));
+        stats.put("p90Ms", percentile(sorted, 90));
+        stats.put("p99Ms", percentile(sorted, 99));
+        stats.put("p999Ms", percentile(sorted, 99.9));
+        stats.put("maxMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        return stats;
+    }
+
+    static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report) {
+        System.out.printf(Locale.ROOT, "%n%s: %s workers, %.0fs measured (Java %s)%n", report.get("label"),
+                report.get("concurrency"), report.get("durationSeconds"), report.get("javaVersion"));
+        System.out.printf(Locale.ROOT, "%-28s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        ((Map<String, Map<String, Object>>) report.get("endpoints")).forEach((endpoint, s) ->
+                System.out.printf(Locale.ROOT, "%-28s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint,
+                        s.get("requests"), s.get("errors"), s.get("throughput"), s.get("p50Ms"), s.get("p90Ms"),
+                        s.get("p99Ms"), s.get("maxMs")));
+    }
+
+    static void compare(JsonNode baseline, JsonNode current) {
+        System.out.printf(Locale.ROOT, "%n%s vs %s%n", current.path("label").asText(), baseline.path("label").asText());
+        System.out.printf(Locale.ROOT, "%-28s %12s %12s %8s %10s %10s %8s%n",
+                "endpoint", "req/s base", "req/s now", "change", "p99 base", "p99 now", "change");
+        current.path("endpoints").fields().forEachRemaining(entry -> {
+            JsonNode before = baseline.path("endpoints").path(entry.getKey());
+            if (before.isMissingNode()) {
+                return;
+            }
+            double rpsBefore = before.path("throughput").asDouble();
+            double rpsNow = entry.getValue().path("throughput").asDouble();
+            double p99Before = before.path("p99Ms").asDouble();
+            double p99Now = entry.getValue().path("p99Ms").asDouble();
+            System.out.printf(Locale.ROOT, "%-28s %12.1f %12.1f %+7.1f%% %10.2f %10.2f %+7.1f%%%n", entry.getKey(),
+                    rpsBefore, rpsNow, change(rpsBefore, rpsNow), p99Before, p99Now, change(p99Before, p99Now));
+        });
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before * 100;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    // "30s", "2m", "500ms" or plain seconds
+    static Duration duration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private static final class Worker extends Thread {
+        private final HttpClient client;
+        private final List<HttpRequest> requests;
+        private final long measureFrom;
+        private final long end;
+        private final LongList[] latencies;
+        private final long[] errors;
+        private int next;
+
+        Worker(HttpClient client, List<HttpRequest> requests, int id, long measureFrom, long end) {
+            super("load-worker-" + id);
+            this.client = client;
+            this.requests = requests;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.latencies = new LongList[requests.size()];
+            this.errors = new long[requests.size()];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LongList();
+            }
+            // Spread workers over the endpoints from the first request on
+            this.next = id % requests.size();
+        }
+
+        @Override
+        public void run() {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int endpoint = next;
+                next = (next + 1) % requests.size();
+                boolean ok;
+                try {
+                    HttpResponse<byte[]> response = client.send(requests.get(endpoint), HttpResponse.BodyHandlers.ofByteArray());
+                    ok = response.statusCode() < 400;
+                } catch (IOException e) {
+                    ok = false;
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = System.nanoTime();
+                if (now >= measureFrom && done <= end) {
+                    if (ok) {
+                        latencies[endpoint].add(done - now);
+                    } else {
+                        errors[endpoint]++;
+                    }
+                }
+            }
+        }
+    }
+
+    static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
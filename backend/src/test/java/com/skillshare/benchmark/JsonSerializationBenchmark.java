@@ -0,0 +1,115 @@
+package com.skillshare.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of the two list endpoints: a {@code Page<Post>} from
+ * {@code GET /api/posts?includeTotal=true} and the {@code List<FeedPost>} from
+ * {@code GET /api/feed}. The mapper is configured the way Spring Boot configures its own.
+ * Payloads are generated from a fixed seed so every run serializes the same bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JsonSerializationBenchmark {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Param({"20", "100"})
+    public int size;
+
+    // Comments embedded in each feed post
+    @Param({"0", "10"})
+    public int comments;
+
+    private ObjectWriter writer;
+    private Page<Post> postPage;
+    private List<FeedPost> feedPosts;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writer();
+        Random random = new Random(42);
+
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Post post = new Post();
+            post.setId(hexId(random));
+            post.setDescription(text(random, 40));
+            post.setImageUrls(List.of("/uploads/posts/" + hexId(random) + ".jpg", "/uploads/posts/" + hexId(random) + ".jpg"));
+            post.setCreatedAt(EPOCH.minusMinutes(i));
+            post.setUpdatedAt(EPOCH.minusMinutes(i));
+            post.setLikes(random.nextInt(500));
+            posts.add(post);
+        }
+        postPage = new PageImpl<>(posts, PageRequest.of(0, size), 10_000);
+
+        feedPosts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String id = hexId(random);
+            List<FeedComment> feedComments = new ArrayList<>();
+            for (int c = 0; c < comments; c++) {
+                feedComments.add(new FeedComment(hexId(random), id, text(random, 15), EPOCH, EPOCH));
+            }
+            feedPosts.add(new FeedPost(id, text(random, 6), text(random, 80), "Programming", hexId(random),
+                    "learning_plan", random.nextInt(500), feedComments, comments, EPOCH.minusMinutes(i), EPOCH.minusMinutes(i)));
+        }
+    }
+
+    @Benchmark
+    public byte[] postPage() throws Exception {
+        return writer.writeValueAsBytes(postPage);
+    }
+
+    @Benchmark
+    public byte[] feedPostList() throws Exception {
+        return writer.writeValueAsBytes(feedPosts);
+    }
+
+    private static String hexId(Random random) {
+        return String.format("%024x", random.nextLong() & Long.MAX_VALUE).substring(0, 24);
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            int length = 3 + random.nextInt(7);
+            for (int c = 0; c < length; c++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.skillshare.benchmark;
+
+import com.skillshare.config.JwtConfig;
+import com.skillshare.security.JwtTokenProvider;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request: the old filter path (two parser builds and two
+ * signature checks) against a single verification and a verified-token cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKey1234567890123456789012345678901234567890";
+
+    private JwtTokenProvider tokenProvider;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setExpiration(TimeUnit.HOURS.toMillis(1));
+
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtConfig", config);
+        ReflectionTestUtils.setField(tokenProvider, "meterRegistry", new SimpleMeterRegistry());
+        tokenProvider.init();
+
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                new User("bench@skillshare.com", "", List.of()), null));
+        tokenProvider.resolveUsername(token);
+    }
+
+    @Benchmark
+    public String validateThenParse() {
+        // What the filter used to do: validateToken() followed by getUsernameFromToken()
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        return tokenProvider.verify(token).orElseThrow().getSubject();
+    }
+
+    @Benchmark
+    public String cachedResolve() {
+        return tokenProvider.resolveUsername(token).orElseThrow();
+    }
+}
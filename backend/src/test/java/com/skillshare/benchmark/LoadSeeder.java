@@ -0,0 +1,220 @@
+package com.skillshare.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.skillshare.model.Comment;
+import com.skillshare.model.CommentAuthor;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Follow;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import com.skillshare.model.User;
+import com.skillshare.service.FeedCommentService;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills a scratch database with a reproducible data set for {@link WorkloadDriver}: users
+ * ({@code user<N>@load.test}, all with password {@link #PASSWORD}), posts with likes and
+ * comments, feed posts and follow edges. Drops the database first. Writes a manifest of the
+ * ids and logins the workload needs to {@code --manifest}.
+ */
+public final class LoadSeeder {
+
+    static final String PASSWORD = "loadtest";
+    private static final String[] CATEGORIES = {"IT", "Music", "Beauty", "Programming", "Cooking", "Design"};
+    private static final int BATCH_SIZE = 1000;
+    // Ids kept in the manifest; the workload picks targets among these
+    private static final int MANIFEST_IDS = 10_000;
+
+    private LoadSeeder() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HttpLoadDriver.parse(args);
+        String uri = options.getOrDefault("mongo-uri", "mongodb://127.0.0.1:27117/skillshare-load");
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int posts = Integer.parseInt(options.getOrDefault("posts", "20000"));
+        int feedPosts = Integer.parseInt(options.getOrDefault("feed-posts", "20000"));
+        int commentsPerPost = Integer.parseInt(options.getOrDefault("comments-per-post", "5"));
+        int likesPerPost = Integer.parseInt(options.getOrDefault("likes-per-post", "10"));
+        int followsPerUser = Integer.parseInt(options.getOrDefault("follows-per-user", "20"));
+        String manifest = options.getOrDefault("manifest", "target/load-seed.json");
+
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+        LocalDateTime now = LocalDateTime.now();
+
+        String database = new ConnectionString(uri).getDatabase();
+        List<String> postIds = new ArrayList<>();
+        List<String> feedPostIds = new ArrayList<>();
+        try (MongoClient client = MongoClients.create(uri)) {
+            client.getDatabase(database).drop();
+            MongoTemplate mongoTemplate = new MongoTemplate(client, database);
+            long started = System.nanoTime();
+
+            String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+            List<User> userDocs = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                User user = new User();
+                user.setId(new ObjectId().toHexString());
+                user.setUsername("user" + i);
+                user.setName("Load User " + i);
+                user.setEmail("user" + i + "@load.test");
+                user.setPassword(passwordHash);
+                user.setRole("USER");
+                user.setEnabled(true);
+                user.setCreatedAt(now.minusDays(60));
+                user.setUpdatedAt(user.getCreatedAt());
+                userDocs.add(user);
+            }
+
+            List<Follow> follows = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                User follower = userDocs.get(i);
+                Set<Integer> followees = new HashSet<>();
+                while (followees.size() < Math.min(followsPerUser, users - 1)) {
+                    int candidate = random.nextInt(users);
+                    if (candidate != i && followees.add(candidate)) {
+                        User followee = userDocs.get(candidate);
+                        Follow follow = new Follow(follower.getId(), followee.getId());
+                        follow.setCreatedAt(now.minusMinutes(random.nextInt(60 * 24 * 30)));
+                        follows.add(follow);
+                        follower.setFollowingCount(follower.getFollowingCount() + 1);
+                        followee.setFollowerCount(followee.getFollowerCount() + 1);
+                    }
+                }
+            }
+            insert(mongoTemplate, userDocs, User.class);
+            insert(mongoTemplate, follows, Follow.class);
+
+            List<Post> postBatch = new ArrayList<>();
+            List<Comment> comments = new ArrayList<>();
+            List<Like> likes = new ArrayList<>();
+            for (int i = 0; i < posts; i++) {
+                Post post = new Post();
+                post.setId(new ObjectId().toHexString());
+                post.setDescription(text(random, 30));
+                post.setCreatedAt(now.minusSeconds(random.nextInt(60 * 60 * 24 * 30)));
+                post.setUpdatedAt(post.getCreatedAt());
+
+                Set<Integer> likers = new HashSet<>();
+                int likeCount = random.nextInt(likesPerPost * 2 + 1);
+                while (likers.size() < Math.min(likeCount, users)) {
+                    likers.add(random.nextInt(users));
+                }
+                for (int liker : likers) {
+                    Like like = new Like(userDocs.get(liker).getId(), Like.TARGET_POST, post.getId());
+                    like.setCreatedAt(post.getCreatedAt());
+                    likes.add(like);
+                }
+                post.setLikes(likers.size());
+
+                int commentCount = random.nextInt(commentsPerPost * 2 + 1);
+                for (int c = 0; c < commentCount; c++) {
+                    User author = userDocs.get(random.nextInt(users));
+                    Comment comment = new Comment();
+                    comment.setPostId(post.getId());
+                    comment.setContent(text(random, 12));
+                    comment.setAuthor(new CommentAuthor(author.getId(), author.getName(), null));
+                    comment.setCreatedAt(post.getCreatedAt().plusMinutes(c + 1));
+                    comment.setUpdatedAt(comment.getCreatedAt());
+                    comments.add(comment);
+                }
+
+                postBatch.add(post);
+                if (postIds.size() < MANIFEST_IDS) {
+                    postIds.add(post.getId());
+                }
+                if (postBatch.size() == BATCH_SIZE) {
+                    insert(mongoTemplate, postBatch, Post.class);
+                    insert(mongoTemplate, comments, Comment.class);
+                    insert(mongoTemplate, likes, Like.class);
+                }
+            }
+            insert(mongoTemplate, postBatch, Post.class);
+            insert(mongoTemplate, comments, Comment.class);
+            insert(mongoTemplate, likes, Like.class);
+
+            List<FeedPost> feedBatch = new ArrayList<>();
+            List<FeedComment> feedComments = new ArrayList<>();
+            for (int i = 0; i < feedPosts; i++) {
+                String id = new ObjectId().toHexString();
+                LocalDateTime createdAt = now.minusSeconds(random.nextInt(60 * 60 * 24 * 30));
+                List<FeedComment> preview = new ArrayList<>();
+                int commentCount = random.nextInt(commentsPerPost * 2 + 1);
+                for (int c = 0; c < commentCount; c++) {
+                    FeedComment comment = new FeedComment(new ObjectId().toHexString(), id, text(random, 12),
+                            createdAt.plusMinutes(c + 1), createdAt.plusMinutes(c + 1));
+                    feedComments.add(comment);
+                    // Newest first, as FeedCommentService keeps it
+                    preview.add(0, comment);
+                }
+                feedBatch.add(new FeedPost(id, text(random, 6), text(random, 60), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                        new ObjectId().toHexString(), random.nextBoolean() ? "post" : "learning_plan",
+                        random.nextInt(likesPerPost * 2 + 1),
+                        new ArrayList<>(preview.subList(0, Math.min(FeedCommentService.DEFAULT_PREVIEW_SIZE, preview.size()))),
+                        commentCount, createdAt, createdAt));
+                if (feedPostIds.size() < MANIFEST_IDS) {
+                    feedPostIds.add(id);
+                }
+                if (feedBatch.size() == BATCH_SIZE) {
+                    insert(mongoTemplate, feedBatch, FeedPost.class);
+                    insert(mongoTemplate, feedComments, FeedComment.class);
+                }
+            }
+            insert(mongoTemplate, feedBatch, FeedPost.class);
+            insert(mongoTemplate, feedComments, FeedComment.class);
+
+            System.out.printf("Seeded %d users, %d follows, %d posts, %d feed posts into %s in %.1fs%n",
+                    users, follows.size(), posts, feedPosts, database, (System.nanoTime() - started) / 1e9);
+        }
+
+        Map<String, Object> seed = new LinkedHashMap<>();
+        seed.put("users", users);
+        seed.put("emailPattern", "user%d@load.test");
+        seed.put("password", PASSWORD);
+        seed.put("categories", CATEGORIES);
+        seed.put("postIds", postIds);
+        seed.put("feedPostIds", feedPostIds);
+        new File(manifest).getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(manifest), seed);
+        System.out.println("Manifest written to " + manifest);
+    }
+
+    // Inserts and clears the batch
+    private static <T> void insert(MongoTemplate mongoTemplate, List<T> batch, Class<T> type) {
+        for (int from = 0; from < batch.size(); from += BATCH_SIZE) {
+            mongoTemplate.insert(batch.subList(from, Math.min(from + BATCH_SIZE, batch.size())), type);
+        }
+        batch.clear();
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            int length = 3 + random.nextInt(7);
+            for (int c = 0; c < length; c++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
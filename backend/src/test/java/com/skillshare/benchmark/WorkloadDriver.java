@@ -0,0 +1,390 @@
+package com.skillshare.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays a scripted mix of user actions against a running instance seeded by
+ * {@link LoadSeeder}: each of {@code --concurrency} workers logs in as its own seeded user and
+ * then, back to back, picks an operation by weight from {@code --mix} (scrolling, paging the
+ * feed, opening posts, liking, commenting, uploading). Reports throughput and latency
+ * percentiles per operation in the same format as {@link HttpLoadDriver}, so runs can be
+ * compared with {@code --baseline}. Started by {@code scripts/load-test.sh}.
+ */
+public final class WorkloadDriver {
+
+    static final String DEFAULT_MIX =
+            "scroll:30,posts:10,feed:15,feed-category:5,post:10,comments:8,like:8,unlike:4,comment:6,upload:4";
+    private static final int SCROLL_DEPTH = 5;
+    private static final int UPLOAD_IMAGES = 8;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private WorkloadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HttpLoadDriver.parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8081");
+        JsonNode seed = MAPPER.readTree(new File(options.getOrDefault("manifest", "target/load-seed.json")));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        Duration warmup = HttpLoadDriver.duration(options.getOrDefault("warmup", "15s"));
+        Duration measured = HttpLoadDriver.duration(options.getOrDefault("duration", "60s"));
+        String label = options.getOrDefault("label", "workload");
+        List<Operation> mix = mix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        Workload workload = new Workload(baseUrl, seed, images());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Logging in is BCrypt-bound and not part of the measured mix
+        List<String> tokens = new ArrayList<>();
+        int users = seed.path("users").asInt();
+        for (int i = 0; i < concurrency; i++) {
+            tokens.add(login(client, baseUrl, String.format(seed.path("emailPattern").asText(), i % users),
+                    seed.path("password").asText()));
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + measured.toNanos();
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, workload, mix, tokens.get(i), i, measureFrom, end);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+
+        double seconds = measured.toNanos() / 1e9;
+        Map<String, Object> operationStats = new LinkedHashMap<>();
+        for (int o = 0; o < mix.size(); o++) {
+            HttpLoadDriver.LongList all = new HttpLoadDriver.LongList();
+            long errors = 0;
+            for (Worker worker : workers) {
+                all.addAll(worker.latencies[o]);
+                errors += worker.errors[o];
+            }
+            operationStats.put(mix.get(o).name(), HttpLoadDriver.stats(all, errors, seconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("baseUrl", baseUrl);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", seconds);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("mix", options.getOrDefault("mix", DEFAULT_MIX));
+        report.put("endpoints", operationStats);
+        HttpLoadDriver.print(report);
+
+        ObjectMapper writer = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String out = options.get("out");
+        if (out != null && !out.isEmpty()) {
+            writer.writeValue(new File(out), report);
+            System.out.println("Results written to " + out);
+        }
+        String baseline = options.get("baseline");
+        if (baseline != null && !baseline.isEmpty()) {
+            HttpLoadDriver.compare(writer.readTree(new File(baseline)), writer.valueToTree(report));
+        }
+    }
+
+    // "scroll:30,like:5" -> operations with their weights; unknown names fail fast
+    static List<Operation> mix(String spec) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight <= 0) {
+                continue;
+            }
+            Action action = switch (parts[0]) {
+                case "scroll" -> Workload::scroll;
+                case "posts" -> Workload::posts;
+                case "feed" -> Workload::feed;
+                case "feed-category" -> Workload::feedCategory;
+                case "post" -> Workload::post;
+                case "comments" -> Workload::comments;
+                case "like" -> Workload::like;
+                case "unlike" -> Workload::unlike;
+                case "comment" -> Workload::comment;
+                case "upload" -> Workload::upload;
+                default -> throw new IllegalArgumentException("Unknown operation in --mix: " + parts[0]);
+            };
+            operations.add(new Operation(parts[0], weight, action));
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("--mix has no operations with a positive weight");
+        }
+        return operations;
+    }
+
+    private static String login(HttpClient client, String baseUrl, String email, String password)
+            throws IOException, InterruptedException {
+        String body = MAPPER.writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + email + " failed with " + response.statusCode()
+                    + "; was the database seeded with LoadSeeder?");
+        }
+        return MAPPER.readTree(response.body()).path("token").asText();
+    }
+
+    // A few distinct small JPEGs; uploads reuse them, which also exercises content deduplication
+    private static List<byte[]> images() throws IOException {
+        List<byte[]> images = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < UPLOAD_IMAGES; i++) {
+            BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            for (int s = 0; s < 40; s++) {
+                g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                g.fillRect(random.nextInt(800), random.nextInt(600), 20 + random.nextInt(200), 20 + random.nextInt(200));
+            }
+            g.dispose();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            images.add(out.toByteArray());
+        }
+        return images;
+    }
+
+    record Operation(String name, int weight, Action action) {
+    }
+
+    @FunctionalInterface
+    interface Action {
+        HttpRequest request(Workload workload, Session session);
+    }
+
+    /** Per-worker state: its token, random source and where it is in its current scroll. */
+    static final class Session {
+        final String token;
+        final Random random;
+        String cursor;
+        int scrolled;
+
+        Session(String token, long seed) {
+            this.token = token;
+            this.random = new Random(seed);
+        }
+    }
+
+    /** Builds the request for each operation from the seeded ids. */
+    static final class Workload {
+        private final String baseUrl;
+        private final List<String> postIds = new ArrayList<>();
+        private final List<String> categories = new ArrayList<>();
+        private final List<byte[]> images;
+
+        Workload(String baseUrl, JsonNode seed, List<byte[]> images) {
+            this.baseUrl = baseUrl;
+            this.images = images;
+            seed.path("postIds").forEach(id -> postIds.add(id.asText()));
+            seed.path("categories").forEach(category -> categories.add(category.asText()));
+            if (postIds.isEmpty()) {
+                throw new IllegalArgumentException("Seed manifest has no post ids");
+            }
+        }
+
+        HttpRequest scroll(Session session) {
+            String path = "/api/posts/scroll?size=20";
+            if (session.cursor != null) {
+                path += "&cursor=" + URLEncoder.encode(session.cursor, StandardCharsets.UTF_8);
+            }
+            return get(session, path);
+        }
+
+        HttpRequest posts(Session session) {
+            return get(session, "/api/posts?page=" + session.random.nextInt(5) + "&size=20");
+        }
+
+        HttpRequest feed(Session session) {
+            return get(session, "/api/feed?page=" + session.random.nextInt(3) + "&size=20");
+        }
+
+        HttpRequest feedCategory(Session session) {
+            String category = categories.isEmpty() ? "IT" : categories.get(session.random.nextInt(categories.size()));
+            return get(session, "/api/feed/category/" + category + "?page=0&size=20");
+        }
+
+        HttpRequest post(Session session) {
+            return get(session, "/api/posts/" + postId(session));
+        }
+
+        HttpRequest comments(Session session) {
+            return get(session, "/api/comments/posts/" + postId(session));
+        }
+
+        HttpRequest like(Session session) {
+            return authorized(session, "/api/posts/" + postId(session) + "/like")
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+
+        HttpRequest unlike(Session session) {
+            return authorized(session, "/api/posts/" + postId(session) + "/like").DELETE().build();
+        }
+
+        HttpRequest comment(Session session) {
+            String body = "{\"content\":\"load comment " + session.random.nextInt(1_000_000) + "\"}";
+            return authorized(session, "/api/comments/posts/" + postId(session))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        HttpRequest upload(Session session) {
+            String boundary = "load" + Long.toHexString(session.random.nextLong());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            part(body, boundary, "Content-Disposition: form-data; name=\"description\"",
+                    ("load upload " + session.random.nextInt(1_000_000)).getBytes(StandardCharsets.UTF_8));
+            int count = 1 + session.random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                part(body, boundary, "Content-Disposition: form-data; name=\"files\"; filename=\"load-" + i + ".jpg\""
+                        + "\r\nContent-Type: image/jpeg", images.get(session.random.nextInt(images.size())));
+            }
+            body.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            return authorized(session, "/api/posts/with-images")
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+        }
+
+        // Follows the scroll a few pages deep, then starts again from the top
+        void onResponse(Operation operation, Session session, HttpResponse<byte[]> response) {
+            if (!operation.name().equals("scroll")) {
+                return;
+            }
+            String next = null;
+            if (response.statusCode() == 200 && ++session.scrolled < SCROLL_DEPTH) {
+                try {
+                    JsonNode page = MAPPER.readTree(response.body());
+                    next = page.path("nextCursor").isTextual() ? page.path("nextCursor").asText() : null;
+                } catch (IOException e) {
+                    next = null;
+                }
+            }
+            session.cursor = next;
+            if (next == null) {
+                session.scrolled = 0;
+            }
+        }
+
+        private String postId(Session session) {
+            return postIds.get(session.random.nextInt(postIds.size()));
+        }
+
+        private HttpRequest get(Session session, String path) {
+            return authorized(session, path).GET().build();
+        }
+
+        private HttpRequest.Builder authorized(Session session, String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + session.token);
+        }
+
+        private static void part(ByteArrayOutputStream body, String boundary, String headers, byte[] content) {
+            body.writeBytes(("--" + boundary + "\r\n" + headers + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(content);
+            body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Worker extends Thread {
+        private final HttpClient client;
+        private final Workload workload;
+        private final List<Operation> mix;
+        private final int totalWeight;
+        private final Session session;
+        private final long measureFrom;
+        private final long end;
+        private final HttpLoadDriver.LongList[] latencies;
+        private final long[] errors;
+
+        Worker(HttpClient client, Workload workload, List<Operation> mix, String token, int id,
+               long measureFrom, long end) {
+            super("workload-worker-" + id);
+            this.client = client;
+            this.workload = workload;
+            this.mix = mix;
+            this.totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+            this.session = new Session(token, 1000L + id);
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.latencies = new HttpLoadDriver.LongList[mix.size()];
+            this.errors = new long[mix.size()];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new HttpLoadDriver.LongList();
+            }
+        }
+
+        @Override
+        public void run() {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int index = pick();
+                Operation operation = mix.get(index);
+                HttpRequest request = operation.action().request(workload, session);
+                now = System.nanoTime();
+                boolean ok;
+                try {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    ok = response.statusCode() < 400;
+                    workload.onResponse(operation, session, response);
+                } catch (IOException e) {
+                    ok = false;
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = System.nanoTime();
+                if (now >= measureFrom && done <= end) {
+                    if (ok) {
+                        latencies[index].add(done - now);
+                    } else {
+                        errors[index]++;
+                    }
+                }
+            }
+        }
+
+        private int pick() {
+            int roll = session.random.nextInt(totalWeight);
+            for (int i = 0; i < mix.size(); i++) {
+                roll -= mix.get(i).weight();
+                if (roll < 0) {
+                    return i;
+                }
+            }
+            return mix.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.skillshare.config;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexPlanVerifierTest {
+
+    @Test
+    void findsCollectionScansAnywhereInTheWinningPlan() {
+        Document indexed = Document.parse("{queryPlanner: {winningPlan: {stage: 'LIMIT', inputStage: {stage: 'FETCH',"
+                + " inputStage: {stage: 'IXSCAN', indexName: 'userId_createdAt_idx'}}},"
+                + " rejectedPlans: [{stage: 'COLLSCAN'}]}}");
+        Document sharded = Document.parse("{queryPlanner: {winningPlan: {stage: 'SINGLE_SHARD',"
+                + " shards: [{winningPlan: {stage: 'SORT', inputStage: {stage: 'COLLSCAN'}}}]}}}");
+
+        assertFalse(IndexPlanVerifier.scansCollection(indexed));
+        assertTrue(IndexPlanVerifier.scansCollection(sharded));
+    }
+
+    @Test
+    void everyPlannedQueryMapsToTheStoredFieldNames() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        QueryMapper mapper = new QueryMapper(converter);
+
+        List<IndexPlanVerifier.PlannedQuery> plan = IndexPlanVerifier.plan();
+        for (IndexPlanVerifier.PlannedQuery planned : plan) {
+            var entity = mappingContext.getRequiredPersistentEntity(planned.entity());
+            Document filter = mapper.getMappedObject(planned.query().getQueryObject(), entity);
+            Document sort = mapper.getMappedSort(planned.query().getSortObject(), entity);
+            assertFalse(mentions(filter, "id"), planned.name() + " filters on id instead of _id");
+            assertFalse(sort.containsKey("id"), planned.name() + " sorts on id instead of _id");
+            if (planned.name().startsWith("LearningPlanRepository")) {
+                assertInstanceOf(DBRef.class, filter.get("user"));
+            }
+        }
+    }
+
+    // Whether the key occurs anywhere in the filter, including inside $or branches
+    private static boolean mentions(Object filter, String key) {
+        if (filter instanceof Document document) {
+            return document.containsKey(key) || document.values().stream().anyMatch(value -> mentions(value, key));
+        }
+        if (filter instanceof List<?> list) {
+            return list.stream().anyMatch(item -> mentions(item, key));
+        }
+        return false;
+    }
+}
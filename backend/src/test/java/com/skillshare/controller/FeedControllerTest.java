@@ -0,0 +1,111 @@
+package com.skillshare.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.model.FeedPost;
+import com.skillshare.repository.mongo.FeedPostRepository;
+import com.skillshare.service.FirstPageSnapshots;
+import com.skillshare.service.LikeCounterBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedControllerTest {
+
+    private FeedPostRepository feedPostRepository;
+    private LikeCounterBuffer likeCounterBuffer;
+    private FeedController controller;
+
+    @BeforeEach
+    void setUp() {
+        feedPostRepository = mock(FeedPostRepository.class);
+        likeCounterBuffer = mock(LikeCounterBuffer.class);
+        controller = new FeedController();
+        ReflectionTestUtils.setField(controller, "feedPostRepository", feedPostRepository);
+        ReflectionTestUtils.setField(controller, "likeCounterBuffer", likeCounterBuffer);
+        ReflectionTestUtils.setField(controller, "firstPageSnapshots", mock(FirstPageSnapshots.class));
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void listWithoutPagingIsCappedAtTheNewestPosts() {
+        List<FeedPost> posts = posts(3);
+        when(feedPostRepository.findAllBy(any(Pageable.class))).thenReturn(new SliceImpl<>(posts));
+
+        ResponseEntity<?> response = controller.getAllPosts(null, null, null);
+
+        // Still a plain array for clients that predate paging
+        assertEquals(posts, response.getBody());
+        Pageable pageable = capturePageable();
+        assertEquals(0, pageable.getPageNumber());
+        assertEquals(100, pageable.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "id"), pageable.getSort());
+        verify(likeCounterBuffer, times(3)).applyPending(any(FeedPost.class));
+    }
+
+    @Test
+    void pagedListReturnsASliceAndCapsTheSize() {
+        when(feedPostRepository.findAllBy(any(Pageable.class))).thenReturn(new SliceImpl<>(posts(2)));
+
+        ResponseEntity<?> response = controller.getAllPosts(3, 500, null);
+
+        assertInstanceOf(SliceImpl.class, response.getBody());
+        Pageable pageable = capturePageable();
+        assertEquals(3, pageable.getPageNumber());
+        assertEquals(100, pageable.getPageSize());
+    }
+
+    @Test
+    void streamWritesOneDocumentPerLineAndClosesTheCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(feedPostRepository.streamAllBy()).thenReturn(posts(250).stream().onClose(() -> closed.set(true)));
+
+        ResponseEntity<StreamingResponseBody> response = controller.streamAllPosts();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(250, lines.size());
+        assertEquals("post-0", new ObjectMapper().readTree(lines.get(0)).get("id").asText());
+        assertEquals("post-249", new ObjectMapper().readTree(lines.get(249)).get("id").asText());
+        assertTrue(closed.get());
+        verify(likeCounterBuffer, times(250)).applyPending(any(FeedPost.class));
+    }
+
+    private Pageable capturePageable() {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(feedPostRepository).findAllBy(pageable.capture());
+        return pageable.getValue();
+    }
+
+    private static List<FeedPost> posts(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            FeedPost post = new FeedPost();
+            post.setId("post-" + i);
+            post.setTitle("Post " + i);
+            return post;
+        }).toList();
+    }
+}
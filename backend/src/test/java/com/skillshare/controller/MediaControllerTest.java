@@ -0,0 +1,100 @@
+package com.skillshare.controller;
+
+import com.skillshare.service.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class MediaControllerTest {
+
+    private static final String NAME = "b".repeat(64) + ".mp4";
+
+    @TempDir
+    Path uploadDir;
+
+    private MediaController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(uploadDir.resolve("video"));
+        Files.writeString(uploadDir.resolve("video").resolve(NAME), "0123456789");
+        controller = new MediaController(new FileStorageService(mock(MongoTemplate.class), new SimpleMeterRegistry(), uploadDir.toString(), 2));
+    }
+
+    @Test
+    void servesWholeFileWithImmutableCaching() throws Exception {
+        MockHttpServletResponse response = get(new MockHttpServletRequest("GET", "/uploads/video/" + NAME));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("\"" + NAME + "\"", response.getHeader("ETag"));
+        assertEquals(MediaController.CACHE_CONTROL, response.getHeader("Cache-Control"));
+        assertEquals("video/mp4", response.getContentType());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/video/" + NAME);
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+
+        request = new MockHttpServletRequest("GET", "/uploads/video/" + NAME);
+        request.addHeader("Range", "bytes=-3");
+        assertEquals("789", get(request).getContentAsString());
+
+        request = new MockHttpServletRequest("GET", "/uploads/video/" + NAME);
+        request.addHeader("Range", "bytes=10-");
+        assertEquals(416, get(request).getStatus());
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/video/" + NAME);
+        request.addHeader("If-None-Match", "\"" + NAME + "\"");
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void handsFileToSendfileWhenContainerSupportsIt() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/video/" + NAME);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=4-");
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(4L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void doesNotServeOutsideUploadsOrTheSpool() throws Exception {
+        Files.createDirectories(uploadDir.resolve(".tmp"));
+        Files.writeString(uploadDir.resolve(".tmp").resolve("upload-1.part"), "partial");
+
+        assertEquals(404, get(new MockHttpServletRequest("GET", "/uploads/.tmp/upload-1.part")).getStatus());
+        assertEquals(404, get(new MockHttpServletRequest("GET", "/uploads/video/missing.mp4")).getStatus());
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.serve(request, response);
+        return response;
+    }
+}
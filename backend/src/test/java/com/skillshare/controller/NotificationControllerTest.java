@@ -0,0 +1,81 @@
+package com.skillshare.controller;
+
+import com.skillshare.dto.PageCursor;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.NotificationHub;
+import com.skillshare.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationControllerTest {
+
+    private static final UserPrincipal USER = new UserPrincipal("u1", "u1@example.com", "hash", "User One", null);
+
+    private NotificationService notificationService;
+    private NotificationController controller;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = mock(NotificationService.class);
+        controller = new NotificationController(notificationService, mock(NotificationHub.class));
+    }
+
+    @Test
+    void inboxDecodesTheCursorAndCapsThePageSize() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 3, 1, 12, 0), "n5");
+
+        assertEquals(200, controller.getNotifications(cursor.encode(), 1000, USER).getStatusCode().value());
+
+        verify(notificationService).getInbox("u1", cursor, 100);
+    }
+
+    @Test
+    void inboxRejectsAForgedCursor() {
+        assertEquals(400, controller.getNotifications("bm90LWEtY3Vyc29y", 20, USER).getStatusCode().value());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void unreadCountComesFromTheCounter() {
+        when(notificationService.getUnreadCount("u1")).thenReturn(7L);
+
+        assertEquals(Map.of("count", 7L), controller.getUnreadCount(USER).getBody());
+    }
+
+    @Test
+    void bulkMarkReadPassesTheIdsAndReportsWhatChanged() {
+        when(notificationService.markRead("u1", List.of("n1", "n2"))).thenReturn(1L);
+
+        assertEquals(Map.of("updated", 1L), controller.markSelectedAsRead(Map.of("ids", List.of("n1", "n2")), USER).getBody());
+        assertEquals(400, controller.markSelectedAsRead(Map.of(), USER).getStatusCode().value());
+    }
+
+    @Test
+    void everyEndpointRequiresAUser() {
+        assertEquals(401, controller.getNotifications(null, 20, null).getStatusCode().value());
+        assertEquals(401, controller.getUnreadCount(null).getStatusCode().value());
+        assertEquals(401, controller.markAsRead("n1", null).getStatusCode().value());
+        assertEquals(401, controller.markSelectedAsRead(Map.of("ids", List.of("n1")), null).getStatusCode().value());
+        assertEquals(401, controller.markAllAsRead(null).getStatusCode().value());
+        assertEquals(401, controller.deleteNotification("n1", null).getStatusCode().value());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void deletingAMissingNotificationIsNotFound() {
+        when(notificationService.delete(anyString(), anyString())).thenReturn(false);
+
+        assertEquals(404, controller.deleteNotification("n1", USER).getStatusCode().value());
+    }
+}
@@ -0,0 +1,146 @@
+package com.skillshare.controller;
+
+import com.skillshare.dto.CursorPage;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Post;
+import com.skillshare.repository.mongo.PostRepository;
+import com.skillshare.service.DeletionService;
+import com.skillshare.service.FileStorageService;
+import com.skillshare.service.FirstPageSnapshots;
+import com.skillshare.service.ImageVariantService;
+import com.skillshare.service.LikeCounterBuffer;
+import com.skillshare.service.LikeService;
+import com.skillshare.service.PostCache;
+import com.skillshare.service.SearchService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostControllerTest {
+
+    private static final String IMAGE = "/uploads/posts/a.png";
+
+    private PostRepository postRepository;
+    private MongoTemplate mongoTemplate;
+    private FileStorageService fileStorageService;
+    private PostCache postCache;
+    private PostController controller;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        fileStorageService = mock(FileStorageService.class);
+        postCache = mock(PostCache.class);
+        when(postCache.postExists("p1")).thenReturn(true);
+        controller = new PostController(postRepository, mongoTemplate, fileStorageService, mock(LikeService.class),
+                mock(LikeCounterBuffer.class), mock(ImageVariantService.class), mock(DeletionService.class),
+                mock(SearchService.class), postCache, mock(FirstPageSnapshots.class));
+    }
+
+    @Test
+    void updateSetsOnlyTheChangedFields() {
+        Post updated = new Post();
+        updated.setId("p1");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Post.class)))
+                .thenReturn(updated);
+
+        ResponseEntity<?> response = controller.updatePost("p1", "new text", null);
+
+        assertEquals(200, response.getStatusCode().value());
+        Document set = (Document) captureUpdate().getUpdateObject().get("$set");
+        assertEquals("new text", set.get("description"));
+        // Likes and variants are written concurrently by other paths and must not be overwritten
+        assertFalse(set.containsKey("likes"));
+        assertFalse(set.containsKey("imageVariants"));
+        assertFalse(set.containsKey("imageUrls"));
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void removingAnImagePullsItAndItsVariants() throws Exception {
+        Post updated = new Post();
+        updated.setId("p1");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Post.class)))
+                .thenReturn(updated);
+
+        ResponseEntity<?> response = controller.deleteImageFromPost("p1", IMAGE);
+
+        assertEquals(200, response.getStatusCode().value());
+        Document pull = (Document) captureUpdate().getUpdateObject().get("$pull");
+        assertEquals(IMAGE, pull.get("imageUrls"));
+        assertEquals(new Document("sourceUrl", IMAGE), pull.get("imageVariants"));
+        assertTrue(((Document) captureUpdate().getUpdateObject().get("$set")).containsKey("updatedAt"));
+        verify(fileStorageService).deleteFile(IMAGE);
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void removingAnImageTheyDontHaveKeepsTheFile() throws Exception {
+        ResponseEntity<?> response = controller.deleteImageFromPost("p1", IMAGE);
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(fileStorageService, never()).deleteFile(anyString());
+    }
+
+    @Test
+    void scrollCursorResumesAfterTheLastPost() {
+        Post newer = post("p2", LocalDateTime.of(2024, 3, 1, 12, 0));
+        Post older = post("p1", LocalDateTime.of(2024, 3, 1, 11, 0));
+        when(postRepository.findNewestAfter(null, 2)).thenReturn(new ArrayList<>(List.of(newer, older)));
+
+        CursorPage<?> page = (CursorPage<?>) controller.scrollPosts(null, 1).getBody();
+
+        assertEquals(List.of(newer), page.getContent());
+        assertTrue(page.isHasNext());
+        assertEquals(new PageCursor(newer.getCreatedAt(), "p2"), PageCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void scrollEndsAtAPostWithoutCreatedAt() {
+        // Stored before createdAt existed and not backfilled yet; these sort last
+        Post legacy = post("p1", null);
+        when(postRepository.findNewestAfter(null, 2)).thenReturn(new ArrayList<>(List.of(legacy, post("p0", null))));
+
+        CursorPage<?> page = (CursorPage<?>) controller.scrollPosts(null, 1).getBody();
+
+        assertEquals(List.of(legacy), page.getContent());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    private static Post post(String id, LocalDateTime createdAt) {
+        Post post = new Post();
+        post.setId(id);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+
+    private Update captureUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Post.class));
+        return update.getValue();
+    }
+}
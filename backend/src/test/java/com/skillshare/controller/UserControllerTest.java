@@ -0,0 +1,147 @@
+package com.skillshare.controller;
+
+import com.skillshare.model.Notification;
+import com.skillshare.model.User;
+import com.skillshare.repository.mongo.CommentRepository;
+import com.skillshare.repository.mongo.UserRepository;
+import com.skillshare.security.CustomUserDetailsService;
+import com.skillshare.security.UserPrincipal;
+import com.skillshare.service.FollowService;
+import com.skillshare.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserControllerTest {
+
+    private static final String EMAIL = "ada@example.com";
+
+    // Stands in for the users collection
+    private User stored;
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private CustomUserDetailsService userDetailsService;
+    private FollowService followService;
+    private NotificationService notificationService;
+    private UserController controller;
+
+    @BeforeEach
+    void setUp() {
+        stored = new User();
+        stored.setId("u1");
+        stored.setEmail(EMAIL);
+        stored.setName("Ada");
+        stored.setPassword("old-hash");
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findById("u1")).thenAnswer(invocation -> Optional.of(copy(stored)));
+        when(userRepository.findByEmail(EMAIL)).thenAnswer(invocation -> Optional.of(copy(stored)));
+        when(userRepository.updatePassword(eq("u1"), anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            stored.setPassword(invocation.getArgument(1));
+            return 1L;
+        });
+        when(userRepository.updateProfile(eq("u1"), any(), any(), any(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            stored.setName(invocation.getArgument(1));
+            return 1L;
+        });
+        passwordEncoder = mock(PasswordEncoder.class);
+        userDetailsService = new CustomUserDetailsService(userRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        followService = mock(FollowService.class);
+        notificationService = mock(NotificationService.class);
+
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(controller, "followService", followService);
+        ReflectionTestUtils.setField(controller, "commentRepository", mock(CommentRepository.class));
+        ReflectionTestUtils.setField(controller, "notificationService", notificationService);
+    }
+
+    @Test
+    void principalIsCachedUntilThePasswordChanges() {
+        UserPrincipal principal = userDetailsService.loadUserByUsername(EMAIL);
+        userDetailsService.loadUserByUsername(EMAIL);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+
+        when(passwordEncoder.matches("current", "old-hash")).thenReturn(true);
+        when(passwordEncoder.encode("next")).thenReturn("new-hash");
+        assertEquals(200, controller.changePassword(Map.of("currentPassword", "current", "newPassword", "next"), principal)
+                .getStatusCode().value());
+
+        // A cached copy would keep accepting the old password until the TTL ran out
+        assertEquals("new-hash", userDetailsService.loadUserByUsername(EMAIL).getPassword());
+    }
+
+    @Test
+    void rejectedPasswordChangeKeepsTheCachedPrincipal() {
+        UserPrincipal principal = userDetailsService.loadUserByUsername(EMAIL);
+
+        assertEquals(400, controller.changePassword(Map.of("currentPassword", "wrong", "newPassword", "next"), principal)
+                .getStatusCode().value());
+
+        userDetailsService.loadUserByUsername(EMAIL);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verify(userRepository, never()).updatePassword(anyString(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void profileUpdateRefreshesTheCachedDisplayName() {
+        UserPrincipal principal = userDetailsService.loadUserByUsername(EMAIL);
+        User update = new User();
+        update.setName("Ada Lovelace");
+
+        controller.updateUserProfile(update, principal);
+
+        assertEquals("Ada Lovelace", userDetailsService.loadUserByUsername(EMAIL).getDisplayName());
+    }
+
+    @Test
+    void followNotifiesOnlyWhenTheEdgeIsNew() {
+        UserPrincipal principal = userDetailsService.loadUserByUsername(EMAIL);
+        when(followService.follow("u1", "u2"))
+                .thenReturn(FollowService.Result.CHANGED)
+                .thenReturn(FollowService.Result.UNCHANGED);
+
+        assertEquals(200, controller.followUser("u2", principal).getStatusCode().value());
+        assertEquals(200, controller.followUser("u2", principal).getStatusCode().value());
+
+        verify(notificationService, times(1)).create(eq("u2"), eq(Notification.TYPE_FOLLOW), anyString(), eq("u1"));
+    }
+
+    @Test
+    void followOfYourselfOrAMissingUserIsRejected() {
+        UserPrincipal principal = userDetailsService.loadUserByUsername(EMAIL);
+        when(followService.follow("u1", "gone")).thenReturn(FollowService.Result.USER_NOT_FOUND);
+
+        assertEquals(400, controller.followUser("u1", principal).getStatusCode().value());
+        assertEquals(404, controller.followUser("gone", principal).getStatusCode().value());
+        verify(notificationService, never()).create(anyString(), anyString(), anyString(), anyString());
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setName(user.getName());
+        copy.setPassword(user.getPassword());
+        return copy;
+    }
+}
@@ -0,0 +1,140 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.model.Comment;
+import com.skillshare.model.DeletionJob;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeletionServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private FileStorageService fileStorageService;
+    private DeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        fileStorageService = mock(FileStorageService.class);
+        when(mongoTemplate.getCollectionName(any())).thenReturn("collection");
+        when(mongoTemplate.remove(any(Query.class), ArgumentMatchers.<Class<Object>>any())).thenReturn(DeleteResult.acknowledged(0));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DeletionJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        service = new DeletionService(mongoTemplate, fileStorageService, mock(PostCache.class), mock(FirstPageSnapshots.class), new SimpleMeterRegistry(), 2, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void storesTheJobBeforeRemovingThePost() {
+        Post post = new Post();
+        post.setImageUrls(new ArrayList<>(List.of("/uploads/posts/a.jpg")));
+        post.setVideoUrl("/uploads/videos/b.mp4");
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(post);
+
+        assertTrue(service.deletePost("p1"));
+
+        ArgumentCaptor<DeletionJob> job = ArgumentCaptor.forClass(DeletionJob.class);
+        InOrder order = inOrder(mongoTemplate);
+        order.verify(mongoTemplate).insert(job.capture());
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Post.class));
+        assertEquals("post:p1", job.getValue().getId());
+        assertEquals(List.of("/uploads/posts/a.jpg", "/uploads/videos/b.mp4"), job.getValue().getFileUrls());
+    }
+
+    @Test
+    void unknownPostSchedulesNothing() {
+        assertFalse(service.deletePost("missing"));
+        verify(mongoTemplate, never()).insert(any(DeletionJob.class));
+    }
+
+    @Test
+    void deletingTwiceKeepsTheFirstJob() {
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(new Post());
+        when(mongoTemplate.insert(any(DeletionJob.class))).thenThrow(new DuplicateKeyException("dup"));
+
+        assertTrue(service.deletePost("p1"));
+        verify(mongoTemplate).remove(any(Query.class), eq(Post.class));
+    }
+
+    @Test
+    void removesDependentsInBatchesOfIdsAndFinishesTheJob() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString()))
+                .thenReturn(List.of(new Document("_id", "c1"), new Document("_id", "c2")))
+                .thenReturn(List.of(new Document("_id", "c3")))
+                .thenReturn(List.of());
+        DeletionJob job = new DeletionJob(Like.TARGET_POST, "p1", new ArrayList<>(List.of("/uploads/posts/a.jpg")));
+        job.setId("post:p1");
+
+        service.run(job);
+
+        // A full batch is followed by another lookup; the short one ends the loop
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(Comment.class));
+        verify(fileStorageService).deleteFile("/uploads/posts/a.jpg");
+        verify(mongoTemplate).remove(any(Query.class), eq(DeletionJob.class));
+    }
+
+    @Test
+    void shutdownBetweenBatchesLeavesTheJobForTheNextStart() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString())).thenAnswer(invocation -> {
+            // Stops after this full batch, with more comments still to remove
+            service.shutdown();
+            return List.of(new Document("_id", "c1"), new Document("_id", "c2"));
+        });
+        DeletionJob job = new DeletionJob(Like.TARGET_POST, "p1", new ArrayList<>(List.of("/uploads/posts/a.jpg")));
+        job.setId("post:p1");
+
+        service.run(job);
+
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(Comment.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Like.class));
+        verify(fileStorageService, never()).deleteFile(anyString());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(DeletionJob.class));
+    }
+
+    @Test
+    void fileAlreadyCrossedOffIsNotReleasedAgain() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString())).thenReturn(List.of());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DeletionJob.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        DeletionJob job = new DeletionJob(Like.TARGET_POST, "p1", new ArrayList<>(List.of("/uploads/posts/a.jpg")));
+        job.setId("post:p1");
+
+        service.run(job);
+
+        verify(fileStorageService, never()).deleteFile(anyString());
+    }
+}
@@ -0,0 +1,97 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.model.FeedComment;
+import com.skillshare.model.FeedPost;
+import com.skillshare.repository.mongo.FeedCommentRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedCommentServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private FeedCommentRepository repository;
+    private FeedCommentService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        repository = mock(FeedCommentRepository.class);
+        when(repository.insert(any(FeedComment.class))).thenAnswer(invocation -> {
+            FeedComment comment = invocation.getArgument(0);
+            comment.setId("c1");
+            return comment;
+        });
+        service = new FeedCommentService(mongoTemplate, repository, mock(PostCache.class), mock(FirstPageSnapshots.class), 3);
+    }
+
+    @Test
+    void addCountsTheCommentAndPushesItToTheFrontOfACappedPreview() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FeedPost.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        FeedComment saved = service.add("p1", new FeedComment(null, null, "hello", null, null)).orElseThrow();
+
+        assertEquals("p1", saved.getPostId());
+        assertNotNull(saved.getCreatedAt());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(FeedPost.class));
+        Update.Modifiers push = (Update.Modifiers) ((Document) update.getValue().getUpdateObject().get("$push")).get("comments");
+        Map<String, Object> modifiers = push.getModifiers().stream()
+                .collect(Collectors.toMap(Update.Modifier::getKey, Update.Modifier::getValue));
+        assertEquals(0, modifiers.get("$position"));
+        assertEquals(3, modifiers.get("$slice"));
+        assertEquals(1, ((Document) update.getValue().getUpdateObject().get("$inc")).get("commentCount"));
+    }
+
+    @Test
+    void addToMissingPostRemovesTheComment() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FeedPost.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertTrue(service.add("missing", new FeedComment()).isEmpty());
+        verify(repository).deleteById("c1");
+    }
+
+    @Test
+    void deletingAShownCommentRefillsThePreview() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(FeedComment.class))).thenReturn(new FeedComment());
+        FeedPost afterPull = new FeedPost();
+        afterPull.setCommentCount(5);
+        afterPull.setComments(List.of(new FeedComment(), new FeedComment()));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FeedPost.class)))
+                .thenReturn(afterPull);
+
+        assertTrue(service.delete("p1", "c1"));
+        verify(mongoTemplate).find(any(Query.class), eq(FeedComment.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(FeedPost.class));
+    }
+
+    @Test
+    void deletingAnUnknownCommentLeavesThePostAlone() {
+        assertFalse(service.delete("p1", "nope"));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(FeedPost.class));
+    }
+}
@@ -0,0 +1,123 @@
+package com.skillshare.service;
+
+import com.skillshare.model.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new FileStorageService(mongoTemplate, meterRegistry, uploadDir.toString(), 2);
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        String first = storage.storeFile(image("a.JPG", "same bytes"), "posts");
+        String second = storage.storeFile(image("b.jpg", "same bytes"), "posts");
+        String other = storage.storeFile(image("c.jpg", "other bytes"), "posts");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertTrue(first.matches("/uploads/posts/[0-9a-f]{64}\\.jpg"));
+        try (Stream<Path> files = Files.list(uploadDir.resolve("posts"))) {
+            assertEquals(2, files.count());
+        }
+        // Nothing left behind in the spool directory
+        try (Stream<Path> spooled = Files.list(uploadDir.resolve(FileStorageService.SPOOL_DIR))) {
+            assertEquals(0, spooled.count());
+        }
+        assertEquals(2, meterRegistry.counter("files.uploaded", "type", "posts", "result", "stored").count());
+        assertEquals(1, meterRegistry.counter("files.uploaded", "type", "posts", "result", "duplicate").count());
+        assertEquals("same bytes".length(),
+                meterRegistry.get("files.uploaded.bytes").tag("result", "duplicate").counter().count());
+    }
+
+    @Test
+    void bytesSurviveUntilLastReferenceIsDeleted() throws Exception {
+        String url = storage.storeFile(image("a.png", "shared"), "posts");
+        Path stored = uploadDir.resolve(url.substring("/uploads/".length()));
+
+        whenReleased(url, 1);
+        storage.deleteFile(url);
+        assertTrue(Files.exists(stored));
+
+        whenReleased(url, 0);
+        storage.deleteFile(url);
+        assertFalse(Files.exists(stored));
+    }
+
+    @Test
+    void storeAllKeepsInputOrder() throws Exception {
+        List<String> urls = storage.storeAll(List.of(image("1.jpg", "one"), image("2.jpg", "two"), image("3.jpg", "three")), "posts");
+
+        assertEquals(storage.storeFile(image("x.jpg", "two"), "posts"), urls.get(1));
+        assertEquals(3, urls.stream().distinct().count());
+    }
+
+    @Test
+    void storeAllRemovesStoredFilesWhenOneFails() throws Exception {
+        MockMultipartFile broken = new MockMultipartFile("files", "bad.jpg", "image/jpeg", new byte[1]) {
+            @Override
+            public void transferTo(File dest) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+
+        IOException failure = assertThrows(IOException.class, () -> storage.storeAll(
+                List.of(image("1.jpg", "one"), broken, image("3.jpg", "three")), "posts"));
+
+        assertEquals("disk full", failure.getMessage());
+        try (Stream<Path> files = Files.list(uploadDir.resolve("posts"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void rejectsUrlsOutsideUploadDir() {
+        assertThrows(IOException.class, () -> storage.deleteFile("/uploads/../secret.txt"));
+    }
+
+    private void whenReleased(String url, long remainingRefs) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StoredFile.class)))
+                .thenReturn(new StoredFile(url, null, 0, remainingRefs, null));
+    }
+
+    private static MockMultipartFile image(String name, String content) {
+        return new MockMultipartFile("files", name, "image/jpeg", content.getBytes());
+    }
+}
@@ -0,0 +1,79 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FirstPageSnapshotsTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final Supplier<List<String>> page = () -> List.of("post-" + queries.incrementAndGet());
+    private FirstPageSnapshots snapshots;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = new FirstPageSnapshots(new ObjectMapper(), new SimpleMeterRegistry(), List.of(10),
+                Duration.ofMinutes(1), 0, 16, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshots.shutdown();
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromOneQueryAndGzippedWhenAccepted() throws IOException {
+        ResponseEntity<byte[]> plain = snapshots.respond(FirstPageSnapshots.Scope.FEED, null, 10, null, page);
+        ResponseEntity<byte[]> gzipped = snapshots.respond(FirstPageSnapshots.Scope.FEED, null, 10, "gzip, br", page);
+
+        assertEquals(1, queries.get());
+        assertEquals("[\"post-1\"]", new String(plain.getBody(), StandardCharsets.UTF_8));
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertEquals("[\"post-1\"]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void writesTriggerABackgroundRebuildOfTheirScopeOnly() throws InterruptedException {
+        snapshots.respond(FirstPageSnapshots.Scope.FEED, "Music", 10, null, page);
+        snapshots.respond(FirstPageSnapshots.Scope.POSTS, null, 10, null, () -> List.of("unchanged"));
+
+        snapshots.invalidate(FirstPageSnapshots.Scope.FEED);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queries.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("[\"post-2\"]", new String(
+                snapshots.respond(FirstPageSnapshots.Scope.FEED, "Music", 10, null, page).getBody(), StandardCharsets.UTF_8));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void gzipIsOnlyUsedWhenNotRefused() {
+        assertTrue(FirstPageSnapshots.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(FirstPageSnapshots.acceptsGzip("*"));
+        assertFalse(FirstPageSnapshots.acceptsGzip("gzip;q=0"));
+        assertFalse(FirstPageSnapshots.acceptsGzip("identity"));
+    }
+}
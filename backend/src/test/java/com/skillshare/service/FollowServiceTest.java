@@ -0,0 +1,125 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Follow;
+import com.skillshare.model.User;
+import com.skillshare.repository.mongo.FollowRepository;
+import com.skillshare.repository.mongo.UserRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FollowServiceTest {
+
+    // Stand in for the follows collection (unique on the pair) and the users' counters
+    private final Set<String> edges = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private FollowRepository followRepository;
+    private MongoTemplate mongoTemplate;
+    private FollowService service;
+
+    @BeforeEach
+    void setUp() {
+        followRepository = mock(FollowRepository.class);
+        when(followRepository.insert(any(Follow.class))).thenAnswer(invocation -> {
+            Follow follow = invocation.getArgument(0);
+            if (!edges.add(follow.getFollowerId() + "->" + follow.getFolloweeId())) {
+                throw new DuplicateKeyException("E11000 duplicate key");
+            }
+            return follow;
+        });
+        when(followRepository.deleteByFollowerIdAndFolloweeId(anyString(), anyString()))
+                .thenAnswer(invocation -> edges.remove(invocation.getArgument(0) + "->" + invocation.getArgument(1)) ? 1L : 0L);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(anyString())).thenAnswer(invocation -> !"gone".equals(invocation.getArgument(0)));
+
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class))
+                .thenAnswer(invocation -> mock(BulkOperations.class, this::applyIncrements));
+        service = new FollowService(followRepository, userRepository, mongoTemplate);
+    }
+
+    @Test
+    void repeatedFollowMovesBothCountersOnce() {
+        assertEquals(FollowService.Result.CHANGED, service.follow("a", "b"));
+        assertEquals(FollowService.Result.UNCHANGED, service.follow("a", "b"));
+
+        assertEquals(1L, counters.get("a.followingCount"));
+        assertEquals(1L, counters.get("b.followerCount"));
+
+        assertEquals(FollowService.Result.CHANGED, service.unfollow("a", "b"));
+        assertEquals(FollowService.Result.UNCHANGED, service.unfollow("a", "b"));
+
+        assertEquals(0L, counters.get("a.followingCount"));
+        assertEquals(0L, counters.get("b.followerCount"));
+    }
+
+    @Test
+    void followingAMissingUserWritesNothing() {
+        assertEquals(FollowService.Result.USER_NOT_FOUND, service.follow("a", "gone"));
+
+        verify(followRepository, never()).insert(any(Follow.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(User.class));
+    }
+
+    @Test
+    void concurrentFollowsAndUnfollowsKeepTheCountersEqualToTheEdges() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 5_000; i++) {
+            String follower = "u" + (i % 20);
+            String followee = "u" + (i % 7 + 20);
+            pool.execute(() -> {
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    service.follow(follower, followee);
+                } else {
+                    service.unfollow(follower, followee);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 27; i++) {
+            String user = "u" + i;
+            assertEquals(edges.stream().filter(edge -> edge.startsWith(user + "->")).count(),
+                    counters.getOrDefault(user + ".followingCount", 0L));
+            assertEquals(edges.stream().filter(edge -> edge.endsWith("->" + user)).count(),
+                    counters.getOrDefault(user + ".followerCount", 0L));
+        }
+    }
+
+    // Applied as each update is queued; execute() is assumed to succeed
+    private Object applyIncrements(InvocationOnMock invocation) {
+        if (!invocation.getMethod().getName().equals("updateOne")) {
+            return null;
+        }
+        String userId = (String) invocation.<Query>getArgument(0).getQueryObject().get("id");
+        Document inc = (Document) invocation.<Update>getArgument(1).getUpdateObject().get("$inc");
+        inc.forEach((field, delta) -> counters.merge(userId + "." + field, ((Number) delta).longValue(), Long::sum));
+        return invocation.getMock();
+    }
+}
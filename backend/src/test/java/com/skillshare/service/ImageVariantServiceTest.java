@@ -0,0 +1,59 @@
+package com.skillshare.service;
+
+import com.skillshare.model.ImageVariant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ImageVariantServiceTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void resizeKeepsAspectRatio() {
+        BufferedImage resized = ImageVariantService.resize(new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB), 320);
+
+        assertEquals(320, resized.getWidth());
+        assertEquals(213, resized.getHeight());
+    }
+
+    @Test
+    void plansOnlyTheVariantsThatWillBeWrittenNamedAfterTheOriginalsHash() throws Exception {
+        Files.createDirectories(uploadDir.resolve("posts"));
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("posts").resolve(HASH + ".png").toFile());
+        // What an undecodable upload such as webp looks like to ImageIO
+        Files.write(uploadDir.resolve("posts").resolve("b".repeat(64) + ".jpg"), new byte[]{'R', 'I', 'F', 'F', 0, 0});
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        ImageVariantService service = new ImageVariantService(
+                new FileStorageService(mongoTemplate, new SimpleMeterRegistry(), uploadDir.toString(), 2),
+                mongoTemplate, mock(PostCache.class), mock(FirstPageSnapshots.class), new SimpleMeterRegistry(),
+                List.of(640, 1280, 320), 1, 1);
+        try {
+            List<ImageVariant> variants = service.plannedVariants("/uploads/posts/" + HASH + ".png");
+
+            // 1280 is wider than the original and is never produced
+            assertEquals(List.of(320, 640), variants.stream().map(ImageVariant::getWidth).toList());
+            assertEquals("/uploads/posts/variants/" + HASH + "-w320.png", variants.get(0).getUrl());
+            assertTrue(service.plannedVariants("/uploads/posts/" + "b".repeat(64) + ".jpg").isEmpty());
+            // Uploads from before content addressing have nothing to name variants after
+            assertTrue(service.plannedVariants("/uploads/posts/3f2c-uuid.jpg").isEmpty());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
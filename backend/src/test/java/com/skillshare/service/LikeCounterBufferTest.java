@@ -0,0 +1,193 @@
+package com.skillshare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeCounterBufferTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private PostCache postCache;
+    private SimpleMeterRegistry meterRegistry;
+    private LikeCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        postCache = mock(PostCache.class);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.unacknowledged());
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new LikeCounterBuffer(mongoTemplate, postCache, mock(FirstPageSnapshots.class), meterRegistry, 500);
+    }
+
+    @Test
+    void concurrentDeltasAreCoalescedIntoOneUpdatePerTarget() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            pool.execute(() -> buffer.add(Like.TARGET_POST, "p1", 1));
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        Post post = new Post();
+        post.setId("p1");
+        post.setLikes(5);
+        buffer.applyPending(post);
+        assertEquals(10_005, post.getLikes());
+
+        buffer.flush();
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        assertEquals(0, buffer.pending(Like.TARGET_POST, "p1"));
+        verify(postCache).evict(Like.TARGET_POST, "p1");
+    }
+
+    @Test
+    void flushThatNeverReachedAServerKeepsDeltasForTheNextAttempt() {
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down",
+                new MongoTimeoutException("Timed out while waiting for a server")));
+        buffer.add(Like.TARGET_FEED_POST, "f1", 3);
+        buffer.add(Like.TARGET_FEED_POST, "f1", -1);
+
+        buffer.flush();
+
+        assertEquals(2, buffer.pending(Like.TARGET_FEED_POST, "f1"));
+        verify(postCache, never()).evict(any(), any());
+    }
+
+    @Test
+    void flushWithAnUnknownOutcomeIsNotRetried() {
+        // The server may have applied the $inc before the reply was lost
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("read timed out",
+                new MongoSocketReadTimeoutException("Timeout while receiving message", new ServerAddress(),
+                        new SocketTimeoutException()))).thenReturn(BulkWriteResult.unacknowledged());
+        buffer.add(Like.TARGET_POST, "p1", 2);
+
+        buffer.flush();
+        buffer.flush();
+
+        assertEquals(0, buffer.pending(Like.TARGET_POST, "p1"));
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        assertEquals(1, meterRegistry.counter("likes.buffer.flush.dropped").count());
+    }
+
+    @Test
+    void partialBulkFailureRetriesOnlyTheFailedUpdates() {
+        buffer.add(Like.TARGET_POST, "p1", 2);
+        buffer.add(Like.TARGET_POST, "p2", 3);
+        BulkWriteError error = new BulkWriteError(11000, "write failed", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("partial",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress())));
+
+        buffer.flush();
+
+        // The update at index 1 failed; the other one was applied and must not be $inc'd again
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).updateOne(queries.capture(), any(Update.class));
+        String applied = (String) queries.getAllValues().get(0).getQueryObject().get("_id");
+        String failed = (String) queries.getAllValues().get(1).getQueryObject().get("_id");
+        assertEquals(0, buffer.pending(Like.TARGET_POST, applied));
+        assertEquals(failed.equals("p1") ? 2 : 3, buffer.pending(Like.TARGET_POST, failed));
+        verify(postCache).evict(Like.TARGET_POST, applied);
+        verify(postCache, never()).evict(Like.TARGET_POST, failed);
+    }
+
+    @Test
+    void deltasStayVisibleUntilTheWriteIsAcknowledged() {
+        buffer.add(Like.TARGET_POST, "p1", 3);
+        AtomicLong seenDuringWrite = new AtomicLong();
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            // A like accepted mid-flush as well
+            buffer.add(Like.TARGET_POST, "p1", 1);
+            seenDuringWrite.set(buffer.pending(Like.TARGET_POST, "p1"));
+            return BulkWriteResult.unacknowledged();
+        });
+
+        buffer.flush();
+
+        assertEquals(4, seenDuringWrite.get());
+        assertEquals(1, buffer.pending(Like.TARGET_POST, "p1"));
+    }
+
+    @Test
+    void flushDuringAFirstPageRebuildLeavesThatPageStale() {
+        // Stands in for the stored count; the rebuild worker is held off so the interleaving is fixed
+        AtomicLong stored = new AtomicLong();
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            stored.set(1);
+            return BulkWriteResult.unacknowledged();
+        });
+        FirstPageSnapshots snapshots = new FirstPageSnapshots(new ObjectMapper(), new SimpleMeterRegistry(), List.of(10),
+                Duration.ZERO, 60_000, 16, Duration.ofMinutes(10));
+        LikeCounterBuffer flushing = new LikeCounterBuffer(mongoTemplate, postCache, snapshots, new SimpleMeterRegistry(), 500);
+        AtomicBoolean flushMidQuery = new AtomicBoolean();
+        Supplier<Long> page = () -> {
+            long likes = stored.get();
+            if (flushMidQuery.getAndSet(false)) {
+                flushing.flush();
+            }
+            return likes + flushing.pending(Like.TARGET_POST, "p1");
+        };
+        try {
+            flushing.add(Like.TARGET_POST, "p1", 1);
+            snapshots.invalidate(Like.TARGET_POST);
+            // Read the stored count before the $inc landed and the pending count after it was acknowledged
+            flushMidQuery.set(true);
+            assertEquals("0", body(snapshots.respond(FirstPageSnapshots.Scope.POSTS, null, 10, null, page)));
+
+            assertEquals("1", body(snapshots.respond(FirstPageSnapshots.Scope.POSTS, null, 10, null, page)));
+        } finally {
+            snapshots.shutdown();
+        }
+    }
+
+    @Test
+    void flushWithNothingPendingWritesNothing() {
+        buffer.flush();
+        verify(bulkOperations, never()).execute();
+    }
+
+    private static String body(ResponseEntity<byte[]> response) {
+        return new String(response.getBody(), StandardCharsets.UTF_8);
+    }
+}
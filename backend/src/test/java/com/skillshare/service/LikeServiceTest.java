@@ -0,0 +1,106 @@
+package com.skillshare.service;
+
+import com.skillshare.dto.LikeResponse;
+import com.skillshare.model.Like;
+import com.skillshare.repository.mongo.LikeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeServiceTest {
+
+    // Stands in for the likes collection and its unique user + target index
+    private final Set<String> ledger = ConcurrentHashMap.newKeySet();
+    private LikeRepository likeRepository;
+    private PostCache postCache;
+    private LikeCounterBuffer buffer;
+    private LikeService service;
+
+    @BeforeEach
+    void setUp() {
+        likeRepository = mock(LikeRepository.class);
+        when(likeRepository.insert(any(Like.class))).thenAnswer(invocation -> {
+            Like like = invocation.getArgument(0);
+            if (!ledger.add(key(like.getUserId(), like.getTargetType(), like.getTargetId()))) {
+                throw new DuplicateKeyException("E11000 duplicate key");
+            }
+            return like;
+        });
+        when(likeRepository.deleteByUserIdAndTargetTypeAndTargetId(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> ledger.remove(key(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2))) ? 1L : 0L);
+        postCache = mock(PostCache.class);
+        when(postCache.postExists("p1")).thenReturn(true);
+        // Never flushed here, so pending() is the counter's whole movement
+        buffer = new LikeCounterBuffer(mock(MongoTemplate.class), postCache, mock(FirstPageSnapshots.class),
+                new SimpleMeterRegistry(), 500);
+        service = new LikeService(likeRepository, postCache, buffer, mock(FirstPageSnapshots.class));
+    }
+
+    @Test
+    void repeatedLikeIsRecordedOnceAndReportedAsUnchanged() {
+        LikeResponse first = service.like("u1", Like.TARGET_POST, "p1").orElseThrow();
+        LikeResponse second = service.like("u1", Like.TARGET_POST, "p1").orElseThrow();
+
+        assertTrue(first.isLiked() && first.isChanged());
+        assertTrue(second.isLiked());
+        assertFalse(second.isChanged());
+        assertEquals(1, buffer.pending(Like.TARGET_POST, "p1"));
+    }
+
+    @Test
+    void unlikeWithoutALikeLeavesTheCounterAlone() {
+        LikeResponse response = service.unlike("u1", Like.TARGET_POST, "p1");
+
+        assertFalse(response.isChanged());
+        assertEquals(0, buffer.pending(Like.TARGET_POST, "p1"));
+    }
+
+    @Test
+    void likeOfAMissingTargetWritesNothing() {
+        assertTrue(service.like("u1", Like.TARGET_POST, "gone").isEmpty());
+        verify(likeRepository, never()).insert(any(Like.class));
+    }
+
+    @Test
+    void concurrentLikesAndUnlikesKeepTheCounterEqualToTheLedger() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 5_000; i++) {
+            String user = "u" + (i % 50);
+            pool.execute(() -> {
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    service.like(user, Like.TARGET_POST, "p1");
+                } else {
+                    service.unlike(user, Like.TARGET_POST, "p1");
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(ledger.size(), buffer.pending(Like.TARGET_POST, "p1"));
+    }
+
+    private static String key(String userId, String targetType, String targetId) {
+        return userId + "|" + targetType + "|" + targetId;
+    }
+}
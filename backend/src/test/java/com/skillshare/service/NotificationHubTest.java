@@ -0,0 +1,178 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationHubTest {
+
+    private static final Pattern EVENT = Pattern.compile("^(?:id:(\\S+)\\n)?event:(\\S+)");
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private RecordingEmitter emitter;
+    private NotificationHub hub;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        emitter = new RecordingEmitter();
+        hub = hub(256);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitter.release.countDown();
+        hub.shutdown();
+    }
+
+    @Test
+    void replayPagesThroughTheWholeGapInOrder() throws InterruptedException {
+        List<Notification> missed = notifications(130);
+        when(mongoTemplate.find(any(Query.class), eq(Notification.class)))
+                .thenReturn(missed.subList(0, 100))
+                .thenReturn(missed.subList(100, 130));
+
+        hub.subscribe("u1", new ObjectId().toHexString());
+
+        assertEquals(ids(missed), emitter.awaitSent(130));
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Notification.class));
+    }
+
+    @Test
+    void gapLargerThanTheQueueAsksForAResyncInstead() throws InterruptedException {
+        hub.shutdown();
+        hub = hub(150);
+        when(mongoTemplate.find(any(Query.class), eq(Notification.class)))
+                .thenReturn(notifications(100))
+                .thenReturn(notifications(100));
+
+        hub.subscribe("u1", new ObjectId().toHexString());
+        Notification live = notifications(1).get(0);
+        hub.publish(live);
+
+        assertEquals(List.of(NotificationHub.RESYNC_EVENT_NAME, live.getId()), emitter.awaitSent(2));
+    }
+
+    @Test
+    void eventsPublishedDuringTheReplayFollowItWithoutDuplicates() throws InterruptedException {
+        List<Notification> missed = notifications(2);
+        Notification live = notifications(1).get(0);
+        when(mongoTemplate.find(any(Query.class), eq(Notification.class))).thenAnswer(invocation -> {
+            // Saved and published while the replay query runs
+            hub.publish(missed.get(1));
+            hub.publish(live);
+            return missed;
+        });
+
+        hub.subscribe("u1", new ObjectId().toHexString());
+
+        assertEquals(List.of(missed.get(0).getId(), missed.get(1).getId(), live.getId()), emitter.awaitSent(3));
+        Thread.sleep(100);
+        assertEquals(3, emitter.sent.size());
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDisconnected() {
+        hub.shutdown();
+        emitter = new RecordingEmitter();
+        hub = hub(2);
+        emitter.blocked = true;
+
+        hub.subscribe("u1", null);
+        notifications(4).forEach(hub::publish);
+
+        assertTrue(emitter.completed);
+        assertEquals(1, meterRegistry.counter("notifications.stream.overflows").count());
+    }
+
+    private NotificationHub hub(int queueCapacity) {
+        return new NotificationHub(mongoTemplate, meterRegistry, Duration.ofMinutes(1), queueCapacity, 5, 1) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                return emitter;
+            }
+        };
+    }
+
+    // ObjectIds of one process increase, like the ones Mongo assigns
+    private static List<Notification> notifications(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Notification notification = new Notification("u1", Notification.TYPE_FOLLOW, "followed you", null);
+            notification.setId(new ObjectId().toHexString());
+            return notification;
+        }).toList();
+    }
+
+    private static List<String> ids(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getId).toList();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        // Notification ids, or the event name for events without one
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blocked;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blocked) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .collect(Collectors.joining());
+            Matcher matcher = EVENT.matcher(text);
+            if (matcher.find()) {
+                sent.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        List<String> awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return List.copyOf(sent);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.skillshare.dto.CursorPage;
+import com.skillshare.dto.PageCursor;
+import com.skillshare.model.Notification;
+import com.skillshare.model.NotificationCounter;
+import com.skillshare.repository.mongo.NotificationMongoRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private NotificationMongoRepository notificationRepository;
+    private MongoTemplate mongoTemplate;
+    private NotificationHub notificationHub;
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationMongoRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        notificationHub = mock(NotificationHub.class);
+        service = new NotificationService(notificationRepository, mongoTemplate, notificationHub);
+    }
+
+    @Test
+    void inboxFetchesOneExtraRowToKnowWhetherThereIsANextPage() {
+        List<Notification> stored = notifications(3);
+        when(mongoTemplate.find(any(Query.class), eq(Notification.class))).thenReturn(stored);
+
+        CursorPage<Notification> page = service.getInbox("u1", null, 2);
+
+        assertEquals(stored.subList(0, 2), page.getContent());
+        assertTrue(page.isHasNext());
+        assertEquals(new PageCursor(NOW.minusMinutes(1), "n1"), PageCursor.decode(page.getNextCursor()));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Notification.class));
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals("u1", query.getValue().getQueryObject().get("userId"));
+    }
+
+    @Test
+    void lastInboxPageHasNoCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(Notification.class))).thenReturn(notifications(2));
+
+        CursorPage<Notification> page = service.getInbox("u1", new PageCursor(NOW, "n0"), 2);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void createdNotificationIsCountedAndPublished() {
+        when(notificationRepository.insert(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Notification created = service.create("u1", Notification.TYPE_FOLLOW, "followed you", "u2");
+
+        assertEquals(1L, unreadIncrement());
+        verify(notificationHub).publish(created);
+    }
+
+    @Test
+    void bulkMarkReadMovesTheCounterByWhatActuallyChanged() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Notification.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 2L, null));
+
+        assertEquals(2, service.markRead("u1", List.of("n1", "n2", "n3")));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(Update.class), eq(Notification.class));
+        Document criteria = query.getValue().getQueryObject();
+        // Someone else's or already read notifications must not move the counter
+        assertEquals("u1", criteria.get("userId"));
+        assertEquals(false, criteria.get("read"));
+        assertEquals(-2L, unreadIncrement());
+    }
+
+    @Test
+    void markReadThatChangesNothingLeavesTheCounterAlone() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Notification.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertEquals(0, service.markAllRead("u1"));
+        assertEquals(0, service.markRead("u1", List.of()));
+
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(NotificationCounter.class));
+    }
+
+    @Test
+    void unreadCountIsSeededOnceForUsersWithoutACounter() {
+        when(notificationRepository.countByUserIdAndReadFalse("u1")).thenReturn(4L);
+        when(mongoTemplate.insert(any(NotificationCounter.class))).thenThrow(new DuplicateKeyException("E11000"));
+
+        assertEquals(4, service.getUnreadCount("u1"));
+
+        when(mongoTemplate.findById("u2", NotificationCounter.class)).thenReturn(new NotificationCounter("u2", -1));
+        // A counter that drifted below zero is never shown as negative
+        assertEquals(0, service.getUnreadCount("u2"));
+    }
+
+    @Test
+    void deletingAnUnreadNotificationDecrementsTheCounter() {
+        Notification unread = notifications(1).get(0);
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Notification.class))).thenReturn(unread);
+
+        assertTrue(service.delete("u1", "n0"));
+        assertEquals(-1L, unreadIncrement());
+    }
+
+    @Test
+    void deletingSomeoneElsesNotificationFails() {
+        assertFalse(service.delete("u1", "n0"));
+        verifyNoInteractions(notificationHub);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(NotificationCounter.class));
+    }
+
+    private long unreadIncrement() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(NotificationCounter.class));
+        return ((Number) ((Document) update.getValue().getUpdateObject().get("$inc")).get("unread")).longValue();
+    }
+
+    // Newest first, a minute apart
+    private static List<Notification> notifications(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Notification notification = new Notification("u1", Notification.TYPE_FOLLOW, "followed you", null);
+            notification.setId("n" + i);
+            notification.setCreatedAt(NOW.minusMinutes(i));
+            return notification;
+        }).toList();
+    }
+}
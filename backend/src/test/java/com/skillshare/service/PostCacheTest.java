@@ -0,0 +1,74 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Like;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostCacheTest {
+
+    private MongoTemplate mongoTemplate;
+    private PostCache cache;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        cache = new PostCache(mongoTemplate, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void repeatedReadsHitTheCacheUntilEvicted() {
+        when(mongoTemplate.findById("p1", Post.class)).thenReturn(post("p1", 5));
+
+        cache.getPost("p1");
+        cache.getPost("p1");
+        verify(mongoTemplate, times(1)).findById("p1", Post.class);
+
+        when(mongoTemplate.findById("p1", Post.class)).thenReturn(post("p1", 6));
+        cache.evict(Like.TARGET_POST, "p1");
+
+        assertEquals(6, cache.getPost("p1").orElseThrow().getLikes());
+        verify(mongoTemplate, times(2)).findById("p1", Post.class);
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        when(mongoTemplate.findById("p1", Post.class)).thenReturn(post("p1", 5));
+
+        Post first = cache.getPost("p1").orElseThrow();
+        first.setLikes(50);
+        first.getImageUrls().clear();
+
+        Post second = cache.getPost("p1").orElseThrow();
+        assertEquals(5, second.getLikes());
+        assertEquals(List.of("/uploads/posts/a.png"), second.getImageUrls());
+    }
+
+    @Test
+    void missingPostsAreNotCached() {
+        assertFalse(cache.postExists("gone"));
+        assertFalse(cache.getPost("gone").isPresent());
+        verify(mongoTemplate, times(2)).findById("gone", Post.class);
+    }
+
+    private static Post post(String id, int likes) {
+        Post post = new Post();
+        post.setId(id);
+        post.setLikes(likes);
+        post.setImageUrls(new ArrayList<>(List.of("/uploads/posts/a.png")));
+        return post;
+    }
+}
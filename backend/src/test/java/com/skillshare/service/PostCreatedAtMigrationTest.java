@@ -0,0 +1,60 @@
+package com.skillshare.service;
+
+import com.skillshare.model.Post;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostCreatedAtMigrationTest {
+
+    @Test
+    void postsWithoutCreatedAtGetTheirObjectIdTimestamp() {
+        ObjectId id = new ObjectId(new Date(1_700_000_000_000L));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("posts")))
+                .thenReturn(Stream.of(new Document("_id", id), new Document("_id", "not-an-object-id")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class)).thenReturn(bulk);
+
+        new PostCreatedAtMigration(mongoTemplate).run(null);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(1)).updateOne(query.capture(), update.capture());
+        assertEquals(id, query.getValue().getQueryObject().get("_id"));
+        // Only fills the gap; a post that got a createdAt meanwhile is left as it is
+        assertTrue(query.getValue().getQueryObject().containsKey("createdAt"));
+        assertNull(query.getValue().getQueryObject().get("createdAt"));
+        assertEquals(new Date(1_700_000_000_000L), ((Document) update.getValue().getUpdateObject().get("$set")).get("createdAt"));
+        verify(bulk).execute();
+    }
+
+    @Test
+    void nothingToBackfillWritesNothing() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("posts"))).thenReturn(Stream.empty());
+
+        new PostCreatedAtMigration(mongoTemplate).run(null);
+
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Post.class));
+    }
+}
@@ -0,0 +1,155 @@
+package com.skillshare.service;
+
+import com.skillshare.dto.SearchHit;
+import com.skillshare.dto.SearchResults;
+import com.skillshare.model.FeedPost;
+import com.skillshare.model.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SearchServiceTest {
+
+    @TempDir
+    Path indexDir;
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+    }
+
+    @Test
+    void ranksTitleMatchesFirstAndMatchesTheLastWordAsAPrefix() throws IOException {
+        SearchService search = service(1000);
+        search.indexFeedPost(feedPost("f1", "Guitar chords for beginners", "Start with G and C", "Music"));
+        search.indexFeedPost(feedPost("f2", "Practice routine", "Ten minutes of guitar a day", "Music"));
+        search.indexPost(post("p1", "Learning Spring Boot"));
+
+        assertEquals(List.of("f1", "f2"), ids(search.search("guitar", null, null, 0, 10)));
+        assertEquals(List.of("p1"), ids(search.search("learning spr", null, null, 0, 10)));
+        // Only the last word is a prefix unless it ends in *
+        assertEquals(List.of(), ids(search.search("gui chords", null, null, 0, 10)));
+        assertEquals(List.of("f1"), ids(search.search("gui* chords", null, null, 0, 10)));
+        assertEquals(List.of("f1"), ids(search.search("Guitär BEGINNERS", null, null, 0, 10)));
+    }
+
+    @Test
+    void filtersByTypeAndCategoryAndPages() throws IOException {
+        SearchService search = service(1000);
+        search.indexFeedPost(feedPost("f1", "Java streams", "", "Programming"));
+        search.indexFeedPost(feedPost("f2", "Java coffee", "", "Food"));
+        search.indexPost(post("p1", "java records"));
+
+        assertEquals(List.of("f1"), ids(search.search("java", null, "programming", 0, 10)));
+        assertEquals(List.of("p1"), ids(search.search("java", SearchService.TYPE_POST, null, 0, 10)));
+        SearchResults first = search.search("java", null, null, 0, 2);
+        assertEquals(3, first.getTotal());
+        assertTrue(first.isHasNext());
+        assertEquals(1, search.search("java", null, null, 1, 2).getHits().size());
+    }
+
+    @Test
+    void restartLoadsSnapshotAndJournalWithoutTouchingMongo() throws IOException {
+        // Snapshots only when told to, so no background snapshot can race the restart below
+        SearchService first = service(1000);
+        first.indexPost(post("p1", "watercolor basics"));
+        first.indexPost(post("p2", "watercolor landscapes"));
+        // The next change lands in a fresh journal
+        first.snapshot();
+        first.indexPost(post("p3", "watercolor portraits"));
+        first.remove(SearchService.TYPE_POST, "p1");
+        first.indexPost(post("p2", "oil landscapes"));
+        // A half-written record from a crash must not hide anything before it
+        Files.write(indexDir.resolve("journal.log"), new byte[]{1, 0}, StandardOpenOption.APPEND);
+
+        SearchService restarted = new SearchService(mongoTemplate, new SimpleMeterRegistry(), indexDir.toString(), 1000, 0);
+        restarted.run(null);
+
+        assertEquals(List.of("p3"), ids(restarted.search("watercolor", null, null, 0, 10)));
+        assertEquals(List.of("p2"), ids(restarted.search("oil", null, null, 0, 10)));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void failedRebuildIsNotPersistedAndSucceedsOnRetry() throws IOException {
+        MongoTemplate flaky = mock(MongoTemplate.class);
+        when(flaky.stream(any(Query.class), eq(Post.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(Stream.of(post("p1", "pottery wheel")));
+        SearchService search = new SearchService(flaky, new SimpleMeterRegistry(), indexDir.toString(), 1, 0);
+        search.indexPost(post("p2", "pottery glazes"));
+
+        assertFalse(search.rebuild());
+        // Past snapshot-every, but a snapshot now would be loaded as complete on the next start
+        search.snapshot();
+        assertFalse(Files.exists(indexDir.resolve("snapshot.bin")));
+
+        assertTrue(search.rebuild());
+        assertTrue(Files.exists(indexDir.resolve("snapshot.bin")));
+        assertEquals(2, search.search("pottery", null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    void prefixMatchesEveryExpansion() throws IOException {
+        SearchService search = service(1000);
+        IntStream.range(0, 100).forEach(i -> search.indexPost(post("p" + i, "photo" + i)));
+
+        SearchResults results = search.search("photo", null, null, 0, 10);
+        assertEquals(100, results.getTotal());
+        assertEquals(10, results.getHits().size());
+    }
+
+    private SearchService service(int snapshotEvery) throws IOException {
+        // Empty database, so the rebuild completes at once
+        SearchService service = new SearchService(mock(MongoTemplate.class), new SimpleMeterRegistry(),
+                indexDir.toString(), snapshotEvery, 0);
+        service.rebuild();
+        return service;
+    }
+
+    private static List<String> ids(SearchResults results) {
+        return results.getHits().stream().map(SearchHit::getId).toList();
+    }
+
+    private static Post post(String id, String description) {
+        Post post = new Post();
+        post.setId(id);
+        post.setDescription(description);
+        post.setCreatedAt(LocalDateTime.now());
+        return post;
+    }
+
+    private static FeedPost feedPost(String id, String title, String content, String category) {
+        FeedPost post = new FeedPost();
+        post.setId(id);
+        post.setTitle(title);
+        post.setContent(content);
+        post.setCategory(category);
+        post.setCreatedAt(LocalDateTime.now());
+        return post;
+    }
+}
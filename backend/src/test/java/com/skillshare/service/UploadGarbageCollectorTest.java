@@ -0,0 +1,113 @@
+package com.skillshare.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.skillshare.model.Post;
+import com.skillshare.model.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadGarbageCollectorTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @TempDir
+    Path uploadDir;
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private UploadGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.getCollectionName(any())).thenReturn("other");
+        when(mongoTemplate.getCollectionName(Post.class)).thenReturn("posts");
+        when(mongoTemplate.remove(any(Query.class), eq(StoredFile.class))).thenReturn(DeleteResult.acknowledged(1));
+        FileStorageService storage = new FileStorageService(mongoTemplate, meterRegistry, uploadDir.toString(), 1);
+        collector = new UploadGarbageCollector(mongoTemplate, storage, meterRegistry,
+                true, Duration.ofHours(1), 2, 1000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        collector.shutdown();
+    }
+
+    @Test
+    void deletesOnlyOldUnreferencedFilesAndReportsTheBytes() throws IOException {
+        Path kept = file("posts/" + "b".repeat(64) + ".jpg", 10, true);
+        Path orphan = file("posts/" + HASH + ".jpg", 20, true);
+        Path orphanVariant = file("posts/variants/" + HASH + "-w320.jpg", 5, true);
+        Path fresh = file("image/" + "c".repeat(64) + ".png", 40, false);
+        Path stalePart = file(FileStorageService.SPOOL_DIR + "/upload-1.part", 7, true);
+        when(mongoTemplate.find(argThat(query -> query.getQueryObject().containsKey("imageUrls")),
+                eq(Document.class), eq("posts")))
+                .thenReturn(List.of(new Document("imageUrls", List.of("/uploads/posts/" + "b".repeat(64) + ".jpg"))));
+        when(mongoTemplate.exists(argThat(query -> query.toString().contains("b".repeat(64))), eq(Post.class)))
+                .thenReturn(true);
+
+        UploadGarbageCollector.Report report = collector.sweep();
+
+        assertEquals(5, report.scanned());
+        assertEquals(3, report.deleted());
+        assertEquals(20 + 5 + 7, report.reclaimedBytes());
+        assertTrue(Files.exists(kept));
+        assertTrue(Files.exists(fresh));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(orphanVariant));
+        assertFalse(Files.exists(stalePart));
+        assertEquals(32, meterRegistry.get("uploads.gc.reclaimed").counter().count());
+    }
+
+    @Test
+    void fileReferencedAgainBeforeItsDeleteIsKept() throws IOException {
+        Path orphan = file("posts/" + HASH + ".jpg", 20, true);
+        // Found unreferenced in the batch lookup, referenced by the time it is deleted
+        when(mongoTemplate.exists(any(Query.class), eq(Post.class))).thenReturn(true);
+
+        assertEquals(0, collector.sweep().deleted());
+        assertTrue(Files.exists(orphan));
+    }
+
+    @Test
+    void variantHashComesFromTheVariantName() {
+        assertEquals(HASH, UploadGarbageCollector.variantHash("/uploads/posts/variants/" + HASH + "-w640.png"));
+        assertNull(UploadGarbageCollector.variantHash("/uploads/posts/variants/variant-123.part"));
+    }
+
+    private Path file(String relative, int size, boolean old) throws IOException {
+        Path path = uploadDir.resolve(relative);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+        return path;
+    }
+}
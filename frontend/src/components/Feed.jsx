@@ -44,6 +44,8 @@ const categories = [
 
 const Feed = () => {
   const [posts, setPosts] = useState([]);
+  const [page, setPage] = useState(0);
+  const [hasMore, setHasMore] = useState(false);
   const [selectedCategory, setSelectedCategory] = useState('all');
   const [newPost, setNewPost] = useState({ title: '', content: '', category: '' });
   const [editPost, setEditPost] = useState(null);
@@ -58,17 +60,20 @@ const Feed = () => {
     loadPosts();
   }, [selectedCategory]);
 
-  const loadPosts = async () => {
+  // Reloads from the first page unless a later page is asked for
+  const loadPosts = async (pageToLoad = 0) => {
     try {
       let response;
       if (selectedCategory === 'all') {
-        response = await feedAPI.getAllPosts();
+        response = await feedAPI.getAllPosts(pageToLoad);
       } else {
-        response = await feedAPI.getPostsByCategory(selectedCategory);
+        response = await feedAPI.getPostsByCategory(selectedCategory, pageToLoad);
       }
-      setPosts(response.data);
-      // Load comments for each post
-      response.data.forEach(post => loadComments(post.id));
+      // Posts carry their comment count; full comments load when a post's comments are opened
+      const { content, last } = response.data;
+      setPosts(prev => (pageToLoad === 0 ? content : [...prev, ...content]));
+      setPage(pageToLoad);
+      setHasMore(!last);
     } catch (error) {
       console.error('Error loading posts:', error);
     }
@@ -122,10 +127,17 @@ const Feed = () => {
     }
   };
 
+  const updateCommentCount = (postId, delta) => {
+    setPosts(prev => prev.map(post =>
+      post.id === postId ? { ...post, commentCount: Math.max(0, (post.commentCount || 0) + delta) } : post
+    ));
+  };
+
   const handleAddComment = async (postId) => {
     try {
       await feedAPI.addComment(postId, { content: newComment[postId] });
       setNewComment(prev => ({ ...prev, [postId]: '' }));
+      updateCommentCount(postId, 1);
       loadComments(postId);
     } catch (error) {
       console.error('Error adding comment:', error);
@@ -145,6 +157,7 @@ const Feed = () => {
   const handleDeleteComment = async (postId, commentId) => {
     try {
       await feedAPI.deleteComment(postId, commentId);
+      updateCommentCount(postId, -1);
       loadComments(postId);
     } catch (error) {
       console.error('Error deleting comment:', error);
@@ -261,11 +274,12 @@ const Feed = () => {
                       startIcon={<CommentIcon />}
                       onClick={() => {
                         setSelectedPost(post);
+                        loadComments(post.id);
                         setOpenCommentDialog(true);
                       }}
                       sx={{ minWidth: '120px' }}
                     >
-                      {comments[post.id]?.length || 0} Comments
+                      {post.commentCount || 0} Comments
                     </Button>
                     <Box sx={{ ml: 'auto', display: 'flex', gap: 1 }}>
                       <IconButton 
@@ -289,6 +303,13 @@ const Feed = () => {
               </Card>
             </Grid>
           ))}
+          {hasMore && (
+            <Grid item xs={12} sx={{ textAlign: 'center' }}>
+              <Button variant="outlined" onClick={() => loadPosts(page + 1)}>
+                Load more
+              </Button>
+            </Grid>
+          )}
         </Grid>
       </Container>
 
@@ -48,6 +48,7 @@ const Social = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [notifications, setNotifications] = useState([]);
+  const [unreadCount, setUnreadCount] = useState(0);
   const [openNotifications, setOpenNotifications] = useState(false);
   const [editingComment, setEditingComment] = useState({ id: null, postId: null, content: '' });
   const [showComments, setShowComments] = useState({});
@@ -87,8 +88,12 @@ const Social = () => {
 
   const fetchNotifications = async () => {
     try {
-      const res = await notificationAPI.getNotifications();
-      setNotifications(res.data);
+      const [res, unread] = await Promise.all([
+        notificationAPI.getNotifications(),
+        notificationAPI.getUnreadCount(),
+      ]);
+      setNotifications(res.data.content);
+      setUnreadCount(unread.data.count);
     } catch (err) {
       console.error('Failed to load notifications', err);
     }
@@ -246,7 +251,7 @@ const Social = () => {
               Social Feed
             </Typography>
             <Badge 
-              badgeContent={notifications.filter(n => !n.read).length} 
+              badgeContent={unreadCount} 
               color="error"
               overlap="circular"
             >
@@ -442,13 +447,13 @@ const Social = () => {
                         >
                           <ListItemAvatar>
                             <Avatar sx={{ width: 32, height: 32 }}>
-                              {comment.user?.name?.charAt(0) || 'U'}
+                              {comment.author?.name?.charAt(0) || 'U'}
                             </Avatar>
                           </ListItemAvatar>
                           <ListItemText
                             primary={
                               <Typography variant="subtitle2" component="span">
-                                {comment.user?.name || 'Unknown User'}
+                                {comment.author?.name || 'Unknown User'}
                               </Typography>
                             }
                             secondary={
@@ -83,6 +83,7 @@ export const commentAPI = {
 
 export const notificationAPI = {
   getNotifications: () => api.get('/notifications'),
+  getUnreadCount: () => api.get('/notifications/unread/count'),
   markAsRead: (id) => api.put(`/notifications/${id}/read`),
   markAllAsRead: () => api.put('/notifications/read-all'),
   deleteNotification: (id) => api.delete(`/notifications/${id}`),
@@ -97,11 +98,14 @@ export const learningProgressAPI = {
 };
 
 export const feedAPI = {
-  getAllPosts: () => axios.get(`${API_URL}/api/feed`),
-  getPostsByCategory: (category) => axios.get(`${API_URL}/api/feed/category/${category}`),
-  getPostsBySourceType: (sourceType) => axios.get(`${API_URL}/api/feed/source/${sourceType}`),
-  getPostsByCategoryAndSourceType: (category, sourceType) => 
-    axios.get(`${API_URL}/api/feed/category/${category}/source/${sourceType}`),
+  // Paged: the response is a slice with the posts in `content` and `last` set on the final page
+  getAllPosts: (page = 0, size = 20) => axios.get(`${API_URL}/api/feed`, { params: { page, size } }),
+  getPostsByCategory: (category, page = 0, size = 20) =>
+    axios.get(`${API_URL}/api/feed/category/${category}`, { params: { page, size } }),
+  getPostsBySourceType: (sourceType, page = 0, size = 20) =>
+    axios.get(`${API_URL}/api/feed/source/${sourceType}`, { params: { page, size } }),
+  getPostsByCategoryAndSourceType: (category, sourceType, page = 0, size = 20) =>
+    axios.get(`${API_URL}/api/feed/category/${category}/source/${sourceType}`, { params: { page, size } }),
   createPost: (post) => axios.post(`${API_URL}/api/feed`, post),
   updatePost: (id, post) => axios.put(`${API_URL}/api/feed/${id}`, post),
   deletePost: (id) => axios.delete(`${API_URL}/api/feed/${id}`),